@@ -0,0 +1,143 @@
+package com.anzpek.todolist;
+
+import static org.junit.Assert.*;
+
+import android.os.Debug;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 위젯 데이터 파싱 벤치마크: org.json 트리 vs JsonReader 스트리밍 (5,000개 할일)
+ *
+ * parseCombinedJson 은 이제 예전 data 문자열(하위 호환)과 마이그레이션에서만 쓰인다.
+ * 지금 JS 는 배열을 구조화된 형태로 보내므로 평소 동기화 경로는 여기서 재지 않는다.
+ * 예전 JS 가 보내던 형태 그대로 today 섹션과 description 을 포함한 페이로드를 만든다.
+ *
+ * 테스트로 확인하는 것은 두 방식의 결과가 같은지뿐이고, 시간/할당량은 기기마다 달라서
+ * logcat 의 "WidgetIngestBenchmark" 태그로 기록만 한다.
+ */
+@RunWith(AndroidJUnit4.class)
+public class WidgetIngestBenchmark {
+
+    private static final int TASK_COUNT = 5000;
+    private static final int VACATION_COUNT = 300;
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 9;
+
+    @Test
+    public void streamingParseMatchesDom() throws Exception {
+        String payload = buildPayload();
+
+        // 두 방식의 결과가 같은지 먼저 확인
+        List<WidgetSnapshot.Task> domTasks = new ArrayList<>();
+        List<WidgetSnapshot.Vacation> domVacations = new ArrayList<>();
+        parseWithDom(payload, domTasks, domVacations);
+        List<WidgetSnapshot.Task> streamTasks = new ArrayList<>();
+        List<WidgetSnapshot.Vacation> streamVacations = new ArrayList<>();
+        WidgetSnapshot.parseCombinedJson(payload, streamTasks, streamVacations);
+        assertEquals(WidgetHash.ofTasks(domTasks), WidgetHash.ofTasks(streamTasks));
+        assertEquals(WidgetHash.ofVacations(domVacations), WidgetHash.ofVacations(streamVacations));
+        assertEquals(TASK_COUNT, streamTasks.size());
+
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            parseWithDom(payload, new ArrayList<>(), new ArrayList<>());
+            WidgetSnapshot.parseCombinedJson(payload, new ArrayList<>(), new ArrayList<>());
+        }
+
+        long[] domTimes = new long[MEASURED_RUNS];
+        long[] streamTimes = new long[MEASURED_RUNS];
+        long[] domAlloc = new long[MEASURED_RUNS];
+        long[] streamAlloc = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            Runtime.getRuntime().gc();
+            startAllocCounting();
+            long start = System.nanoTime();
+            parseWithDom(payload, new ArrayList<>(), new ArrayList<>());
+            domTimes[i] = System.nanoTime() - start;
+            domAlloc[i] = stopAllocCounting();
+
+            Runtime.getRuntime().gc();
+            startAllocCounting();
+            start = System.nanoTime();
+            WidgetSnapshot.parseCombinedJson(payload, new ArrayList<>(), new ArrayList<>());
+            streamTimes[i] = System.nanoTime() - start;
+            streamAlloc[i] = stopAllocCounting();
+        }
+
+        long domMs = median(domTimes) / 1_000_000;
+        long streamMs = median(streamTimes) / 1_000_000;
+        long domBytes = median(domAlloc);
+        long streamBytes = median(streamAlloc);
+        android.util.Log.i("WidgetIngestBenchmark", "payload=" + payload.length() + " chars, "
+            + "dom=" + domMs + "ms/" + domBytes + "B, stream=" + streamMs + "ms/" + streamBytes + "B"
+            + " (할당 통계를 지원하지 않는 런타임에서는 0B)");
+    }
+
+    // 예전 방식: 전체 트리를 만든 뒤 필요한 필드만 꺼냄
+    private static void parseWithDom(String json, List<WidgetSnapshot.Task> tasks,
+                                     List<WidgetSnapshot.Vacation> vacations) throws Exception {
+        JSONObject combined = new JSONObject(json);
+        WidgetSnapshot.fromJsonArrays(combined.optJSONArray("calendar"), combined.optJSONArray("vacations"), tasks, vacations);
+    }
+
+    private static String buildPayload() throws Exception {
+        String[] priorities = {"urgent", "high", "medium", "low"};
+        JSONArray today = new JSONArray();
+        JSONArray calendar = new JSONArray();
+        for (int i = 0; i < TASK_COUNT; i++) {
+            JSONObject task = new JSONObject();
+            task.put("id", "todo-" + i);
+            task.put("title", "할일 " + i + " 회의 자료 정리");
+            task.put("completed", i % 7 == 0);
+            task.put("priority", priorities[i % 4]);
+            task.put("dueDate", i % 3 == 0 ? "" : "2026-10-" + String.format("%02d", 1 + i % 28) + "T15:00:00.000Z");
+            task.put("startDate", i % 5 == 0 ? "2026-09-" + String.format("%02d", 1 + i % 28) + "T15:00:00.000Z" : "");
+            task.put("completedAt", i % 7 == 0 ? "2026-10-15T03:12:45.000Z" : "");
+            calendar.put(task);
+
+            JSONObject todayItem = new JSONObject(task.toString());
+            todayItem.put("description", "상세 설명 " + i + " - 위젯에서는 표시하지 않는 긴 본문 텍스트입니다.");
+            todayItem.put("progress", i % 101);
+            today.put(todayItem);
+        }
+        JSONArray vacations = new JSONArray();
+        for (int i = 0; i < VACATION_COUNT; i++) {
+            JSONObject vacation = new JSONObject();
+            vacation.put("id", "vac-" + i);
+            vacation.put("date", "2026-10-" + String.format("%02d", 1 + i % 28));
+            vacation.put("type", i % 2 == 0 ? "연차" : "오전");
+            vacation.put("employeeName", "직원" + (i % 40));
+            vacations.put(vacation);
+        }
+        JSONObject combined = new JSONObject();
+        combined.put("today", today);
+        combined.put("calendar", calendar);
+        combined.put("vacations", vacations);
+        return combined.toString();
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void startAllocCounting() {
+        Debug.resetThreadAllocSize();
+        Debug.startAllocCounting();
+    }
+
+    @SuppressWarnings("deprecation")
+    private static long stopAllocCounting() {
+        Debug.stopAllocCounting();
+        return Debug.getThreadAllocSize();
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
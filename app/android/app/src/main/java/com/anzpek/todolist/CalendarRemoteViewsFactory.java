@@ -6,20 +6,11 @@ import android.content.SharedPreferences;
 import android.widget.RemoteViews;
 import android.widget.RemoteViewsService;
 import android.graphics.Color;
-import android.view.View;
 
-import android.graphics.Paint;
-import android.util.TypedValue;
-
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * Calendar 위젯의 할일 리스트 어댑터 (Today 위젯과 동일한 기능)
@@ -31,8 +22,8 @@ public class CalendarRemoteViewsFactory implements RemoteViewsService.RemoteView
 
     private final Context context;
     private List<ItemInfo> itemList = new ArrayList<>();
+    private final RowViewCache rowViews = new RowViewCache();
     private static final String PREFS_NAME = "WidgetPrefs";
-    private static final String PREF_PREFIX_KEY = "todo_list_";
 
     private static class ItemInfo {
         String id;
@@ -41,16 +32,23 @@ public class CalendarRemoteViewsFactory implements RemoteViewsService.RemoteView
         boolean completed;
         boolean isVacation;
         String vacationType;
-        int progress;
+        // 네이티브에서 펼친 반복 발생일 (WidgetStore 에 없으므로 토글 불가)
+        boolean occurrence;
+        // 행 키로만 만든 안정 id (휴가 줄은 줄 번호 vac_line_N, 보이는 내용은 contentVersion 으로 따로 비교)
+        final long stableId;
         
-        ItemInfo(String id, String title, String priority, boolean completed, boolean isVacation, String vacationType, int progress) {
+        ItemInfo(String id, String title, String priority, boolean completed, boolean isVacation, String vacationType) {
             this.id = id;
             this.title = title;
             this.priority = priority;
             this.completed = completed;
             this.isVacation = isVacation;
             this.vacationType = vacationType;
-            this.progress = progress;
+            this.stableId = WidgetHash.rowId(id);
+        }
+
+        long contentVersion() {
+            return WidgetHash.rowContent(title, priority, completed, isVacation || occurrence);
         }
         
         int getSortOrder() {
@@ -78,10 +76,6 @@ public class CalendarRemoteViewsFactory implements RemoteViewsService.RemoteView
                 default: return Color.parseColor("#A78BFA");
             }
         }
-        
-        String getCheckbox() {
-            return completed ? "☑" : "☐";
-        }
     }
 
     public CalendarRemoteViewsFactory(Context context, Intent intent) {
@@ -95,12 +89,14 @@ public class CalendarRemoteViewsFactory implements RemoteViewsService.RemoteView
 
     @Override
     public void onDataSetChanged() {
+        rowViews.newGeneration();
         loadTasks();
     }
 
     @Override
     public void onDestroy() {
         itemList.clear();
+        rowViews.clear();
     }
 
     @Override
@@ -112,48 +108,26 @@ public class CalendarRemoteViewsFactory implements RemoteViewsService.RemoteView
     public RemoteViews getViewAt(int position) {
         if (position >= itemList.size()) return null;
 
-        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_task_item);
+        // id 와 내용이 그대로인 행은 전에 만든 RemoteViews 를 다시 쓴다
         ItemInfo item = itemList.get(position);
+        long version = item.contentVersion();
+        RemoteViews views = rowViews.get(item.stableId, version);
+        if (views == null) {
+            views = buildRow(item);
+            rowViews.put(item.stableId, version, views);
+        }
+        return views;
+    }
 
+    // 종류별 레이아웃: 휴가 줄, 반복 발생일 (앱 열기만) / 미완료 / 완료 (토글 + 앱 열기)
+    private RemoteViews buildRow(ItemInfo item) {
         if (item.isVacation) {
-            views.setTextViewText(R.id.widget_item_checkbox, "");
-            views.setTextViewText(R.id.widget_item_title, item.title);
-            views.setTextColor(R.id.widget_item_title, item.getColor());
-            views.setViewVisibility(R.id.widget_item_due_date, View.GONE);
-            
-            Intent openAppIntent = new Intent();
-            openAppIntent.putExtra("action", "open_app");
-            views.setOnClickFillInIntent(R.id.widget_item_text_area, openAppIntent);
-        } else {
-            String checkbox = item.getCheckbox();
-            views.setTextViewText(R.id.widget_item_checkbox, checkbox);
-            views.setTextColor(R.id.widget_item_checkbox, item.getColor());
-            
-            views.setTextViewText(R.id.widget_item_title, item.title);
-            
-            if (item.completed) {
-                views.setTextColor(R.id.widget_item_checkbox, Color.parseColor("#6B7280"));
-                views.setTextColor(R.id.widget_item_title, Color.parseColor("#6B7280"));
-            } else {
-                views.setTextColor(R.id.widget_item_title, Color.WHITE);
-            }
-            
-            views.setViewVisibility(R.id.widget_item_due_date, View.GONE);
-            
-            // 체크박스 클릭 → 완료 토글
-            Intent toggleIntent = new Intent();
-            toggleIntent.putExtra("action", "toggle");
-            toggleIntent.putExtra("task_id", item.id);
-            views.setOnClickFillInIntent(R.id.widget_item_checkbox, toggleIntent);
-            
-            // 텍스트 클릭 → 앱 열기
-            Intent openAppIntent = new Intent();
-            openAppIntent.putExtra("action", "open_app");
-            openAppIntent.putExtra("task_id", item.id);
-            views.setOnClickFillInIntent(R.id.widget_item_text_area, openAppIntent);
+            return TaskRowViews.vacation(context, item.title);
         }
-
-        return views;
+        if (item.occurrence) {
+            return TaskRowViews.occurrence(context, item.title, item.getColor());
+        }
+        return TaskRowViews.task(context, item.id, item.title, item.completed, item.getColor());
     }
 
     @Override
@@ -163,12 +137,12 @@ public class CalendarRemoteViewsFactory implements RemoteViewsService.RemoteView
 
     @Override
     public int getViewTypeCount() {
-        return 1;
+        return TaskRowViews.VIEW_TYPE_COUNT;
     }
 
     @Override
     public long getItemId(int position) {
-        return position;
+        return position < itemList.size() ? itemList.get(position).stableId : position;
     }
 
     @Override
@@ -176,140 +150,48 @@ public class CalendarRemoteViewsFactory implements RemoteViewsService.RemoteView
         return true;
     }
 
-    private boolean shouldShowOnDate(JSONObject task, String targetDateKey, String todayDateKey) {
-        try {
-            boolean completed = task.optBoolean("completed", false);
-            
-            String startDateKey = extractDateKey(task.optString("startDate", ""));
-            String dueDateKey = extractDateKey(task.optString("dueDate", ""));
-            String completedAtKey = extractDateKey(task.optString("completedAt", ""));
-
-            boolean hasStart = !startDateKey.isEmpty();
-            boolean hasDue = !dueDateKey.isEmpty();
-
-            if (completed && !completedAtKey.isEmpty()) {
-                return targetDateKey.equals(todayDateKey) && completedAtKey.equals(todayDateKey);
-            }
-            
-            if (hasStart && hasDue) {
-                return targetDateKey.compareTo(startDateKey) >= 0 && targetDateKey.compareTo(dueDateKey) <= 0;
-            }
-
-            if (hasStart && !hasDue) {
-                if (targetDateKey.equals(startDateKey)) return true;
-                if (!completed && targetDateKey.compareTo(startDateKey) > 0 && targetDateKey.compareTo(todayDateKey) <= 0) {
-                    return true;
-                }
-                return false;
-            }
-            
-            if (!hasStart && hasDue) {
-                return targetDateKey.equals(dueDateKey);
-            }
-            
-            if (!hasStart && !hasDue && !completed) {
-                return targetDateKey.equals(todayDateKey);
-            }
-            
-            return false;
-        } catch (Exception e) {
-            return false;
-        }
-    }
-    
-    private String extractDateKey(String isoDate) {
-        if (isoDate == null || isoDate.isEmpty()) return "";
-        if (isoDate.length() >= 10) {
-            return isoDate.substring(0, 10);
-        }
-        return "";
-    }
-
     private void loadTasks() {
         itemList.clear();
         try {
             SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            String todoJson = prefs.getString(PREF_PREFIX_KEY + "data", "[]");
-            
-            JSONArray calendarTasks = new JSONArray();
-            JSONArray vacations = new JSONArray();
-            
-            if (todoJson.startsWith("{")) {
-                JSONObject combined = new JSONObject(todoJson);
-                calendarTasks = combined.optJSONArray("calendar");
-                if (calendarTasks == null) calendarTasks = new JSONArray();
-                vacations = combined.optJSONArray("vacations");
-                if (vacations == null) vacations = new JSONArray();
-            } else {
-                calendarTasks = new JSONArray(todoJson);
-            }
+            WidgetSnapshot snapshot = WidgetDataRepository.get(context);
             
             // Calendar 위젯용 선택된 날짜 (calendar_selected_date_key)
-            SimpleDateFormat dateKeyFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
-            String todayKey = dateKeyFormat.format(new java.util.Date());
+            int todayDay = DateKeys.today();
+            String todayKey = DateKeys.format(todayDay);
             String selectedDate = prefs.getString("calendar_selected_date_key", todayKey);
             
             android.util.Log.d("CalendarFactory", "Loading tasks for: " + selectedDate);
             
-            // 휴가 수집
-            List<String> vacationTitles = new ArrayList<>();
-            for (int i = 0; i < vacations.length(); i++) {
-                JSONObject v = vacations.getJSONObject(i);
-                String vacDate = v.optString("date", "");
-                if (selectedDate.equals(vacDate)) {
-                    String employeeName = v.optString("employeeName", "");
-                    String type = v.optString("type", "휴가");
-                    String title = employeeName.isEmpty() ? type : employeeName + " " + type;
-                    vacationTitles.add(title);
-                }
+            // 휴가: 한 줄에 최대한 많이, 글이 잘리지 않게 (제목 너비는 VacationLinePacker 캐시, Max 140dp)
+            int selectedDay = DateKeys.parse(selectedDate);
+            List<String> vacationLines = VacationLinePacker.get().pack(context, snapshot, selectedDay, 15, 140);
+            for (int lineIndex = 0; lineIndex < vacationLines.size(); lineIndex++) {
+                itemList.add(new ItemInfo("vac_line_" + lineIndex, vacationLines.get(lineIndex), "", false, true, "휴가"));
             }
             
-            // 휴가: 한 줄에 최대한 많이, 글이 잘리지 않게 (Paint 측정, Max 200dp)
-            if (!vacationTitles.isEmpty()) {
-                Paint paint = new Paint();
-                paint.setTextSize(spToPx(15)); // 15sp
-                float maxLineWidth = dpToPx(140); // Calendar 위젯 너비 (더 좁게 잡음)
-                float separatorWidth = paint.measureText(" ⸰ ");
-                
-                StringBuilder line = new StringBuilder();
-                float currentLineWidth = 0;
-                int lineIndex = 0;
-                
-                for (int i = 0; i < vacationTitles.size(); i++) {
-                    String title = vacationTitles.get(i);
-                    float titleWidth = paint.measureText(title);
+            // 할일 추가
+            TaskTable tasks = snapshot.tasks();
+            TaskVisibility visibility = snapshot.visibility();
+            for (int i = 0; i < tasks.count; i++) {
+                if (visibility.visibleInList(i, selectedDay, todayDay)) {
+                    String id = tasks.id(i);
+                    String title = tasks.title(i);
+                    String priority = tasks.priorityName(i);
+                    boolean completed = tasks.completed(i);
                     
-                    if (line.length() == 0) {
-                        line.append(title);
-                        currentLineWidth = titleWidth;
-                    } else {
-                        if (currentLineWidth + separatorWidth + titleWidth <= maxLineWidth) {
-                            line.append(" ⸰ ").append(title);
-                            currentLineWidth += (separatorWidth + titleWidth);
-                        } else {
-                            itemList.add(new ItemInfo("vac_line_" + lineIndex, line.toString(), "", false, true, "휴가", -1));
-                            lineIndex++;
-                            line = new StringBuilder(title);
-                            currentLineWidth = titleWidth;
-                        }
-                    }
-                }
-                if (line.length() > 0) {
-                    itemList.add(new ItemInfo("vac_line_" + lineIndex, line.toString(), "", false, true, "휴가", -1));
+                    itemList.add(new ItemInfo(id, title, priority, completed, false, null));
                 }
             }
-            
-            // 할일 추가
-            for (int i = 0; i < calendarTasks.length(); i++) {
-                JSONObject task = calendarTasks.getJSONObject(i);
-                
-                if (shouldShowOnDate(task, selectedDate, todayKey)) {
-                    String id = task.optString("id", "task_" + i);
-                    String title = task.optString("title", "");
-                    String priority = task.optString("priority", "medium");
-                    boolean completed = task.optBoolean("completed", false);
-                    
-                    itemList.add(new ItemInfo(id, title, priority, completed, false, null, -1));
+
+            // 반복 규칙 발생일 (오늘 이후, JS 인스턴스가 없는 날짜만)
+            RecurrenceEngine recurrence = snapshot.recurrence();
+            for (int r = 0; r < recurrence.count; r++) {
+                if (recurrence.expand(r, Math.max(selectedDay, todayDay), selectedDay, HolidayCalendar.get(context)).length > 0) {
+                    ItemInfo item = new ItemInfo(recurrence.instanceId(r, selectedDay), recurrence.title(r),
+                        recurrence.priorityName(r), false, false, null);
+                    item.occurrence = true;
+                    itemList.add(item);
                 }
             }
             
@@ -328,12 +210,4 @@ public class CalendarRemoteViewsFactory implements RemoteViewsService.RemoteView
             e.printStackTrace();
         }
     }
-
-    private float dpToPx(float dp) {
-        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dp, context.getResources().getDisplayMetrics());
-    }
-
-    private float spToPx(float sp) {
-        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, sp, context.getResources().getDisplayMetrics());
-    }
 }
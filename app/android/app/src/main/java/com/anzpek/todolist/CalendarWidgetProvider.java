@@ -12,19 +12,9 @@ import android.text.SpannableString;
 import android.text.Spanned;
 import android.text.style.ForegroundColorSpan;
 import android.widget.RemoteViews;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.FirebaseFirestore;
@@ -33,7 +23,6 @@ import com.google.firebase.firestore.FieldValue;
 public class CalendarWidgetProvider extends AppWidgetProvider {
 
     private static final String PREFS_NAME = "WidgetPrefs";
-    private static final String PREF_PREFIX_KEY = "todo_list_";
     private static final String ACTION_DATE_CLICK = "com.anzpek.todolist.DATE_CLICK";
     private static final String ACTION_PREV_MONTH = "com.anzpek.todolist.PREV_MONTH";
     private static final String ACTION_NEXT_MONTH = "com.anzpek.todolist.NEXT_MONTH";
@@ -50,280 +39,91 @@ public class CalendarWidgetProvider extends AppWidgetProvider {
         R.id.day_35, R.id.day_36, R.id.day_37, R.id.day_38, R.id.day_39, R.id.day_40, R.id.day_41
     };
 
-    // 할일/휴가 정보를 담는 클래스
-    private static class TaskInfo {
-        String title;
-        String priority;
-        boolean isVacation;
-        String vacationType; // 연차, 오전, 오후, 특별, 병가, 업무
-        
-        TaskInfo(String title, String priority, boolean isVacation, String vacationType) {
-            this.title = title;
-            this.priority = priority;
-            this.isVacation = isVacation;
-            this.vacationType = vacationType;
-        }
-        
-        int getPriorityValue() {
-            if (isVacation) return -1; // 휴가는 맨 위에 표시
-            switch (priority) {
-                case "urgent": return 0;
-                case "high": return 1;
-                case "medium": return 2;
-                case "low": return 3;
-                default: return 2;
-            }
-        }
-        
-        // 우선순위별 색상 반환
-        int getPriorityColor() {
-            switch (priority) {
-                case "urgent": return Color.parseColor("#EF4444"); // 빨강
-                case "high": return Color.parseColor("#F59E0B"); // 주황
-                case "medium": return Color.parseColor("#3B82F6"); // 파랑
-                case "low": return Color.parseColor("#9CA3AF"); // 회색
-                default: return Color.parseColor("#9CA3AF");
-            }
-        }
-        
-        // 휴가 종류별 색상 반환
-        int getVacationColor() {
-            if (vacationType == null) return Color.parseColor("#10B981"); // 기본 초록색
-            switch (vacationType) {
-                case "업무":
-                    return Color.parseColor("#FCD34D"); // 노란색
-                case "연차":
-                case "휴가":
-                    return Color.parseColor("#10B981"); // 초록색
-                case "오전":
-                    return Color.parseColor("#60A5FA"); // 파란색
-                case "오후":
-                    return Color.parseColor("#A78BFA"); // 보라색
-                case "특별":
-                    return Color.parseColor("#FB7185"); // 분홍색
-                case "병가":
-                    return Color.parseColor("#F87171"); // 빨간색
-                default:
-                    return Color.parseColor("#10B981"); // 기본 초록색
-            }
-        }
-    }
-
     // 우선순위별 체크박스 반환 (네모 체크박스)
     private static String getPriorityCheckbox(String priority) {
         return "☐"; // 네모 체크박스
     }
 
-    /**
-     * ISO 날짜 문자열에서 yyyy-MM-dd 부분만 추출
-     */
-    private static String extractDateKey(String isoDate) {
-        if (isoDate == null || isoDate.isEmpty()) return "";
-        if (isoDate.length() >= 10) {
-            return isoDate.substring(0, 10);
-        }
-        return "";
-    }
-
-    /**
-     * 특정 날짜에 할일을 표시해야 하는지 판단
-     */
-    private static boolean shouldShowOnDate(JSONObject task, String targetDateKey, String todayDateKey) {
-        try {
-            boolean completed = task.optBoolean("completed", false);
-            if (completed) return false;
-
-            String startDateKey = extractDateKey(task.optString("startDate", ""));
-            String dueDateKey = extractDateKey(task.optString("dueDate", ""));
-
-            boolean hasStart = !startDateKey.isEmpty();
-            boolean hasDue = !dueDateKey.isEmpty();
-
-            if (hasStart && hasDue) {
-                return targetDateKey.compareTo(startDateKey) >= 0 && targetDateKey.compareTo(dueDateKey) <= 0;
-            }
-
-            if (hasStart && !hasDue) {
-                if (targetDateKey.equals(startDateKey)) return true;
-                if (targetDateKey.compareTo(startDateKey) > 0 && targetDateKey.compareTo(todayDateKey) <= 0) {
-                    return true;
-                }
-                return false;
-            }
-            
-            if (!hasStart && hasDue) {
-                return targetDateKey.equals(dueDateKey);
-            }
-            
-            return false;
-        } catch (Exception e) {
-            android.util.Log.e("CalendarWidget", "shouldShowOnDate error: " + e.getMessage());
-            return false;
-        }
-    }
-
     public static void updateAppWidget(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
-        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_calendar_layout_v2);
+        // 바뀐 칸만 보낸다 (날짜 선택은 이전/새 선택 칸 두 개만)
+        WidgetViews views = new WidgetViews(context, R.layout.widget_calendar_layout_v2);
         SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
         
         try {
             int displayYear = prefs.getInt("calendar_display_year", -1);
             int displayMonth = prefs.getInt("calendar_display_month", -1);
             
-            Calendar displayCal = Calendar.getInstance();
-            if (displayYear > 0 && displayMonth >= 0) {
-                displayCal.set(Calendar.YEAR, displayYear);
-                displayCal.set(Calendar.MONTH, displayMonth);
-            }
-            
-            Calendar today = Calendar.getInstance();
-            int todayYear = today.get(Calendar.YEAR);
-            int todayMonth = today.get(Calendar.MONTH);
-            int todayDay = today.get(Calendar.DAY_OF_MONTH);
+            int todayEpochDay = DateKeys.today();
+            String todayKey = DateKeys.format(todayEpochDay);
             
-            SimpleDateFormat dateKeyFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
-            String todayKey = dateKeyFormat.format(today.getTime());
+            // 표시 중인 달의 그리드 (저장된 month 는 Calendar 기준 0-11, 캐시된 칸 모델)
+            HolidayCalendar holidays = HolidayCalendar.get(context);
+            MonthGrid grid = displayYear > 0 && displayMonth >= 0
+                ? MonthGrid.get(displayYear, displayMonth + 1, 42, holidays)
+                : MonthGrid.get(DateKeys.year(todayEpochDay), DateKeys.month(todayEpochDay), 42, holidays);
             
             String selectedDateKey = prefs.getString("calendar_selected_date_key", todayKey);
+            int selectedDay = DateKeys.parse(selectedDateKey);
             
-            SimpleDateFormat monthFormat = new SimpleDateFormat("MMM yyyy", Locale.ENGLISH);
-            views.setTextViewText(R.id.widget_calendar_month_title, monthFormat.format(displayCal.getTime()));
+            views.setTextViewText(R.id.widget_calendar_month_title, DateKeys.englishMonthTitle(grid.monthStart));
 
             // 월 이동 버튼
             Intent prevIntent = new Intent(context, CalendarWidgetProvider.class);
             prevIntent.setAction(ACTION_PREV_MONTH);
-            PendingIntent prevPendingIntent = PendingIntent.getBroadcast(context, 2000, prevIntent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
-            views.setOnClickPendingIntent(R.id.btn_prev_month, prevPendingIntent);
+            views.setOnClickBroadcast(R.id.btn_prev_month, 2000, prevIntent);
             
             Intent nextIntent = new Intent(context, CalendarWidgetProvider.class);
             nextIntent.setAction(ACTION_NEXT_MONTH);
-            PendingIntent nextPendingIntent = PendingIntent.getBroadcast(context, 2001, nextIntent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
-            views.setOnClickPendingIntent(R.id.btn_next_month, nextPendingIntent);
+            views.setOnClickBroadcast(R.id.btn_next_month, 2001, nextIntent);
             
             // 월 제목 클릭 시 오늘로 이동
             Intent goTodayIntent = new Intent(context, CalendarWidgetProvider.class);
             goTodayIntent.setAction(ACTION_GO_TODAY);
-            PendingIntent goTodayPendingIntent = PendingIntent.getBroadcast(context, 2003, goTodayIntent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
-            views.setOnClickPendingIntent(R.id.widget_calendar_month_title, goTodayPendingIntent);
+            views.setOnClickBroadcast(R.id.widget_calendar_month_title, 2003, goTodayIntent);
             
-            // 우측 할일영역 + 버튼 → 앱 열기 + 할일 추가 모달
+            // 우측 할일영역 + 버튼 → 앱 열기 + 할일 추가 모달 (고정 URI: 매번 바뀌면 부분 업데이트 때마다 다시 보내야 함)
             Intent addIntent = new Intent(context, MainActivity.class);
             addIntent.setAction(Intent.ACTION_VIEW);
-            addIntent.setData(android.net.Uri.parse("todolist://add?t=" + System.currentTimeMillis()));
+            addIntent.setData(android.net.Uri.parse("todolist://add"));
             addIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_SINGLE_TOP);
-            PendingIntent addPendingIntent = PendingIntent.getActivity(context, 2004, addIntent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
-            views.setOnClickPendingIntent(R.id.btn_add_task, addPendingIntent);
+            views.setOnClickActivity(R.id.btn_add_task, 2004, addIntent);
             
             // 새로고침 버튼
             Intent refreshIntent = new Intent(context, CalendarWidgetProvider.class);
             refreshIntent.setAction(ACTION_REFRESH);
-            PendingIntent refreshPendingIntent = PendingIntent.getBroadcast(context, 2005, refreshIntent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
-            views.setOnClickPendingIntent(R.id.btn_refresh, refreshPendingIntent);
+            views.setOnClickBroadcast(R.id.btn_refresh, 2005, refreshIntent);
 
             // 오른쪽 영역 클릭시 앱 열기
             Intent appIntent = new Intent(context, MainActivity.class);
-            PendingIntent appPendingIntent = PendingIntent.getActivity(context, 2002, appIntent,
+            views.setOnClickActivity(R.id.task_list_container, 2002, appIntent,
                 PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
-            views.setOnClickPendingIntent(R.id.task_list_container, appPendingIntent);
 
-            // 할일 로드 (combined 형식에서 calendar 키 파싱)
-            String todoJson = prefs.getString(PREF_PREFIX_KEY + "data", "[]");
-            JSONArray allTasks = new JSONArray();
-            JSONArray vacations = new JSONArray();
+            // 할일/휴가 로드 (바이너리 스냅샷)
+            WidgetSnapshot snapshot = WidgetDataRepository.get(context);
             
-            if (todoJson.startsWith("{")) {
-                JSONObject combined = new JSONObject(todoJson);
-                JSONArray calendarTasks = combined.optJSONArray("calendar");
-                if (calendarTasks != null) {
-                    allTasks = calendarTasks;
-                }
-                // 휴가 데이터 로드
-                JSONArray vacationData = combined.optJSONArray("vacations");
-                if (vacationData != null) {
-                    vacations = vacationData;
-                }
-            } else {
-                allTasks = new JSONArray(todoJson);
-            }
-            
-            android.util.Log.d("CalendarWidget", "Loaded " + allTasks.length() + " calendar tasks, " + vacations.length() + " vacations");
+            android.util.Log.d("CalendarWidget", "Loaded " + snapshot.taskCount() + " calendar tasks, " + snapshot.vacationCount() + " vacations");
 
             // 달력 계산 (일요일 시작)
-            Calendar cal = (Calendar) displayCal.clone();
-            cal.set(Calendar.DAY_OF_MONTH, 1);
-            int dayOfWeek = cal.get(Calendar.DAY_OF_WEEK);
-            int offset = dayOfWeek - Calendar.SUNDAY;
-            cal.add(Calendar.DAY_OF_MONTH, -offset);
+            int gridStartDay = grid.firstDay;
+            int gridEndDay = grid.lastDay();
 
-            // 날짜별 할일 분류 (TaskInfo로 우선순위 포함)
-            Map<String, List<TaskInfo>> tasksByDate = new HashMap<>();
-            Calendar tempCal = (Calendar) cal.clone();
-            for (int i = 0; i < 42; i++) {
-                String dateKey = dateKeyFormat.format(tempCal.getTime());
-                List<TaskInfo> tasksForDay = new ArrayList<>();
-                
-                // 휴가 먼저 추가
-                for (int j = 0; j < vacations.length(); j++) {
-                    JSONObject vacation = vacations.getJSONObject(j);
-                    String vacationDate = vacation.optString("date", "");
-                    if (dateKey.equals(vacationDate)) {
-                        String employeeName = vacation.optString("employeeName", "");
-                        String type = vacation.optString("type", "휴가");
-                        String title = employeeName.isEmpty() ? type : employeeName + " " + type;
-                        tasksForDay.add(new TaskInfo(title, "", true, type));
-                    }
-                }
-                
-                // 할일 추가
-                for (int j = 0; j < allTasks.length(); j++) {
-                    JSONObject task = allTasks.getJSONObject(j);
-                    if (shouldShowOnDate(task, dateKey, todayKey)) {
-                        String title = task.optString("title", "");
-                        String priority = task.optString("priority", "medium");
-                        tasksForDay.add(new TaskInfo(title, priority, false, null));
-                    }
-                }
-                
-                // 우선순위로 정렬 (휴가가 맨 위, 그 다음 urgent, high, medium, low)
-                Collections.sort(tasksForDay, new Comparator<TaskInfo>() {
-                    @Override
-                    public int compare(TaskInfo a, TaskInfo b) {
-                        return a.getPriorityValue() - b.getPriorityValue();
-                    }
-                });
-                
-                if (!tasksForDay.isEmpty()) {
-                    tasksByDate.put(dateKey, tasksForDay);
-                }
-                tempCal.add(Calendar.DAY_OF_MONTH, 1);
-            }
+            // 날짜별 개수만 (칸에는 점만 찍으므로 항목은 모으지 않는다)
+            DayTopK counts = DayTopK.query(snapshot, gridStartDay, gridEndDay, todayEpochDay, 0, holidays);
 
             // 42개 날짜 채우기
-            int displayMonthValue = displayCal.get(Calendar.MONTH);
             for (int i = 0; i < 42; i++) {
-                int dayOfMonth = cal.get(Calendar.DAY_OF_MONTH);
-                int month = cal.get(Calendar.MONTH);
-                int year = cal.get(Calendar.YEAR);
-                String dateKey = dateKeyFormat.format(cal.getTime());
-                
-                boolean hasTask = tasksByDate.containsKey(dateKey);
-                String dayText = dayOfMonth + "\n" + (hasTask ? "•" : " ");
+                boolean hasTask = counts.count(grid.day(i)) > 0;
+                String dayText = grid.dayLabels[i] + "\n" + (hasTask ? "•" : " ");
                 views.setTextViewText(DAY_VIEW_IDS[i], dayText);
                 
                 int color;
-                boolean isSelected = dateKey.equals(selectedDateKey);
-                boolean isToday = (year == todayYear && month == todayMonth && dayOfMonth == todayDay);
+                boolean isSelected = grid.day(i) == selectedDay;
                 
                 if (isSelected) {
                     color = Color.parseColor("#10B981");
-                } else if (isToday) {
+                } else if (grid.is(i, MonthGrid.TODAY)) {
                     color = Color.parseColor("#3B82F6");
-                } else if (month != displayMonthValue) {
+                } else if (grid.is(i, MonthGrid.OTHER_MONTH)) {
                     color = Color.parseColor("#4B5563");
                 } else {
                     color = Color.WHITE;
@@ -332,42 +132,45 @@ public class CalendarWidgetProvider extends AppWidgetProvider {
 
                 Intent clickIntent = new Intent(context, CalendarWidgetProvider.class);
                 clickIntent.setAction(ACTION_DATE_CLICK);
-                clickIntent.putExtra(EXTRA_DATE_KEY, dateKey);
-                PendingIntent pendingIntent = PendingIntent.getBroadcast(context, 
-                    1000 + i, clickIntent,
-                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
-                views.setOnClickPendingIntent(DAY_VIEW_IDS[i], pendingIntent);
-                
-                cal.add(Calendar.DAY_OF_MONTH, 1);
+                clickIntent.putExtra(EXTRA_DATE_KEY, grid.dateKeys[i]);
+                views.setOnClickBroadcast(DAY_VIEW_IDS[i], 1000 + i, clickIntent);
             }
 
-            // ListView 설정 (RemoteViewsService 연결)
+            // ListView 설정 (RemoteViewsService 연결, 전체 업데이트 때만)
+            RemoteViews full = views.full();
             Intent serviceIntent = new Intent(context, CalendarRemoteViewsService.class);
-            views.setRemoteAdapter(R.id.calendar_task_list, serviceIntent);
-            views.setEmptyView(R.id.calendar_task_list, R.id.task_empty);
+            full.setRemoteAdapter(R.id.calendar_task_list, serviceIntent);
+            full.setEmptyView(R.id.calendar_task_list, R.id.task_empty);
             
             // ListView 아이템 클릭 템플릿 (체크박스 토글 / 앱 열기)
             Intent itemClickIntent = new Intent(context, CalendarWidgetProvider.class);
             itemClickIntent.setAction("com.anzpek.todolist.CALENDAR_TOGGLE_TASK");
             PendingIntent itemClickPendingIntent = PendingIntent.getBroadcast(context, 2100, itemClickIntent,
                 PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
-            views.setPendingIntentTemplate(R.id.calendar_task_list, itemClickPendingIntent);
+            full.setPendingIntentTemplate(R.id.calendar_task_list, itemClickPendingIntent);
 
         } catch (Exception e) {
             android.util.Log.e("CalendarWidget", "ERROR: " + e.getMessage(), e);
         }
 
-        appWidgetManager.updateAppWidget(appWidgetId, views);
+        views.push(appWidgetManager, appWidgetId);
         appWidgetManager.notifyAppWidgetViewDataChanged(appWidgetId, R.id.calendar_task_list);
     }
 
     @Override
     public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
+        // 시스템이 요청한 갱신은 전체로
+        WidgetViews.forget(appWidgetIds);
         for (int appWidgetId : appWidgetIds) {
             updateAppWidget(context, appWidgetManager, appWidgetId);
         }
     }
 
+    @Override
+    public void onDeleted(Context context, int[] appWidgetIds) {
+        WidgetViews.forget(appWidgetIds);
+    }
+
     @Override
     public void onReceive(Context context, Intent intent) {
         super.onReceive(context, intent);
@@ -381,45 +184,19 @@ public class CalendarWidgetProvider extends AppWidgetProvider {
                 refreshWidget(context);
             }
         } else if (ACTION_PREV_MONTH.equals(action)) {
-            Calendar displayCal = Calendar.getInstance();
-            int year = prefs.getInt("calendar_display_year", displayCal.get(Calendar.YEAR));
-            int month = prefs.getInt("calendar_display_month", displayCal.get(Calendar.MONTH));
-            
-            Calendar cal = Calendar.getInstance();
-            cal.set(Calendar.YEAR, year);
-            cal.set(Calendar.MONTH, month);
-            cal.add(Calendar.MONTH, -1);
-            
-            prefs.edit()
-                .putInt("calendar_display_year", cal.get(Calendar.YEAR))
-                .putInt("calendar_display_month", cal.get(Calendar.MONTH))
-                .apply();
+            navigateMonth(prefs, -1);
             refreshWidget(context);
         } else if (ACTION_NEXT_MONTH.equals(action)) {
-            Calendar displayCal = Calendar.getInstance();
-            int year = prefs.getInt("calendar_display_year", displayCal.get(Calendar.YEAR));
-            int month = prefs.getInt("calendar_display_month", displayCal.get(Calendar.MONTH));
-            
-            Calendar cal = Calendar.getInstance();
-            cal.set(Calendar.YEAR, year);
-            cal.set(Calendar.MONTH, month);
-            cal.add(Calendar.MONTH, 1);
-            
-            prefs.edit()
-                .putInt("calendar_display_year", cal.get(Calendar.YEAR))
-                .putInt("calendar_display_month", cal.get(Calendar.MONTH))
-                .apply();
+            navigateMonth(prefs, 1);
             refreshWidget(context);
         } else if (ACTION_GO_TODAY.equals(action)) {
             // 오늘 날짜로 이동 (월과 선택 날짜 모두 초기화)
-            Calendar today = Calendar.getInstance();
-            SimpleDateFormat dateKeyFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
-            String todayKey = dateKeyFormat.format(today.getTime());
+            int today = DateKeys.today();
             
             prefs.edit()
-                .putInt("calendar_display_year", today.get(Calendar.YEAR))
-                .putInt("calendar_display_month", today.get(Calendar.MONTH))
-                .putString("calendar_selected_date_key", todayKey)
+                .putInt("calendar_display_year", DateKeys.year(today))
+                .putInt("calendar_display_month", DateKeys.month(today) - 1)
+                .putString("calendar_selected_date_key", DateKeys.format(today))
                 .apply();
             refreshWidget(context);
         } else if (ACTION_REFRESH.equals(action)) {
@@ -433,7 +210,7 @@ public class CalendarWidgetProvider extends AppWidgetProvider {
                 if (taskId != null && !taskId.isEmpty() && !taskId.startsWith("vac_")) {
                     android.util.Log.d("CalendarWidget", "Toggle task: " + taskId);
                     toggleTaskInPrefs(context, taskId);
-                    refreshWidget(context);
+                    refreshAfterIngest(context);
                 }
             } else if ("open_app".equals(clickAction)) {
                 android.util.Log.d("CalendarWidget", "Open app for task: " + taskId);
@@ -444,54 +221,28 @@ public class CalendarWidgetProvider extends AppWidgetProvider {
         }
     }
     
-    // SharedPreferences에서 할일 완료 상태 토글
+    // 표시 월 이동 (저장 형식은 Calendar 와 같은 year + 0-11 month)
+    private void navigateMonth(SharedPreferences prefs, int months) {
+        int today = DateKeys.today();
+        int year = prefs.getInt("calendar_display_year", DateKeys.year(today));
+        int month = prefs.getInt("calendar_display_month", DateKeys.month(today) - 1);
+        
+        int target = DateKeys.firstOfMonth(year, month + 1 + months);
+        
+        prefs.edit()
+            .putInt("calendar_display_year", DateKeys.year(target))
+            .putInt("calendar_display_month", DateKeys.month(target) - 1)
+            .apply();
+    }
+    
+    // 스냅샷에서 할일 완료 상태 토글
     private void toggleTaskInPrefs(Context context, String taskId) {
-        try {
-            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            String dataStr = prefs.getString(PREF_PREFIX_KEY + "data", "");
-            
-            if (dataStr.isEmpty()) return;
-            
-            JSONObject combinedData = new JSONObject(dataStr);
-            JSONArray calendarArray = combinedData.optJSONArray("calendar");
-            
-            if (calendarArray == null) return;
-            
-            boolean found = false;
-            boolean newCompletedState = false;
-            
-            for (int i = 0; i < calendarArray.length(); i++) {
-                JSONObject todo = calendarArray.getJSONObject(i);
-                String id = todo.optString("id", "");
-                
-                if (id.equals(taskId)) {
-                    boolean currentCompleted = todo.optBoolean("completed", false);
-                    newCompletedState = !currentCompleted;
-                    todo.put("completed", newCompletedState);
-                    
-                    if (newCompletedState) {
-                        todo.put("completedAt", new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US).format(new java.util.Date()));
-                    } else {
-                        todo.remove("completedAt");
-                    }
-                    
-                    calendarArray.put(i, todo);
-                    found = true;
-                    android.util.Log.d("CalendarWidget", "Toggled task " + taskId + " to completed=" + newCompletedState);
-                    break;
-                }
-            }
-            
-            if (found) {
-                combinedData.put("calendar", calendarArray);
-                prefs.edit().putString(PREF_PREFIX_KEY + "data", combinedData.toString()).apply();
-                
-                // Firebase Firestore 동기화
-                syncToggleToFirestore(taskId, newCompletedState);
-            }
-            
-        } catch (Exception e) {
-            android.util.Log.e("CalendarWidget", "Error toggling task: " + e.getMessage());
+        Boolean newCompletedState = WidgetStore.get(context).toggleTask(taskId, DateKeys.todayKey());
+        
+        if (newCompletedState != null) {
+            android.util.Log.d("CalendarWidget", "Toggled task " + taskId + " to completed=" + newCompletedState);
+            // Firebase Firestore 동기화
+            syncToggleToFirestore(taskId, newCompletedState);
         }
     }
     
@@ -536,6 +287,21 @@ public class CalendarWidgetProvider extends AppWidgetProvider {
         }
     }
 
+    // 토글은 메모리 모델에만 반영되므로 ingest 큐가 새 스냅샷을 게시한 뒤에 다시 그린다
+    private void refreshAfterIngest(final Context context) {
+        final PendingResult result = goAsync();
+        WidgetIngestQueue.get(context).submit(false, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    refreshWidget(context);
+                } finally {
+                    result.finish();
+                }
+            }
+        });
+    }
+    
     private void refreshWidget(Context context) {
         AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
         ComponentName thisWidget = new ComponentName(context, CalendarWidgetProvider.class);
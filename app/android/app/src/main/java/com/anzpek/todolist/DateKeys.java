@@ -0,0 +1,224 @@
+package com.anzpek.todolist;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * 위젯 공용 날짜 엔진: yyyy-MM-dd 날짜 키 ↔ epoch day(1970-01-01 기준 일수) 변환
+ *
+ * 위젯 루프에서는 문자열 compareTo 대신 int 비교만 하도록 모든 날짜를 epoch day로 다룬다.
+ * 변환, 날짜 이동, 표시 라벨("M/d (E)", "yyyy년 M월 W주" 등) 모두 SimpleDateFormat/Calendar 없이
+ * 산술과 고정 이름표로 처리하므로 스레드 어디서 불러도 안전하고 객체를 만들지 않는다.
+ */
+final class DateKeys {
+
+    // 날짜 없음
+    static final int NONE = Integer.MIN_VALUE;
+
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+    private static final String[] KOREAN_DAY_NAMES = {"일", "월", "화", "수", "목", "금", "토"};
+    private static final String[] ENGLISH_MONTH_NAMES = {
+        "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+
+    private DateKeys() {}
+
+    /**
+     * "yyyy-MM-dd" (뒤에 시간이 붙어 있어도 앞 10자만 사용) → epoch day, 형식이 맞지 않으면 NONE
+     */
+    static int parse(String key) {
+        if (key == null || key.length() < 10 || key.charAt(4) != '-' || key.charAt(7) != '-') return NONE;
+        int year = digits(key, 0, 4);
+        int month = digits(key, 5, 7);
+        int day = digits(key, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) return NONE;
+        return fromCivil(year, month, day);
+    }
+
+    /**
+     * ISO 문자열 → 기기 시간대 기준 epoch day
+     * - "yyyy-MM-dd" 만 있으면 그 날짜 그대로
+     * - "yyyy-MM-ddTHH:mm[:ss[.SSS]]" 뒤에 Z 나 ±HH:mm 이 있으면 그 시각을 기기 시간대 날짜로 바꾼다
+     *   (JS toISOString() 은 UTC 라서 앞 10자만 자르면 한국 시간 오전 9시 이전이 전날로 밀린다)
+     * - 시간대 표시가 없으면 이미 로컬 시각으로 보고 날짜 부분만 쓴다
+     */
+    static int parseIso(String iso) {
+        int day = parse(iso);
+        if (day == NONE || iso.length() < 16 || (iso.charAt(10) != 'T' && iso.charAt(10) != ' ')) return day;
+        int hour = digits(iso, 11, 13);
+        int minute = digits(iso, 14, 16);
+        if (hour < 0 || minute < 0 || iso.charAt(13) != ':') return day;
+        int second = 0;
+        int pos = 16;
+        if (pos + 3 <= iso.length() && iso.charAt(pos) == ':') {
+            second = Math.max(0, digits(iso, pos + 1, pos + 3));
+            pos += 3;
+        }
+        if (pos < iso.length() && iso.charAt(pos) == '.') {
+            pos++;
+            while (pos < iso.length() && Character.isDigit(iso.charAt(pos))) pos++;
+        }
+        if (pos >= iso.length()) return day;
+
+        long offsetMs;
+        char zone = iso.charAt(pos);
+        if (zone == 'Z' || zone == 'z') {
+            offsetMs = 0;
+        } else if ((zone == '+' || zone == '-') && pos + 3 <= iso.length()) {
+            int zoneHour = digits(iso, pos + 1, pos + 3);
+            int zoneMinute = 0;
+            if (pos + 6 <= iso.length() && iso.charAt(pos + 3) == ':') zoneMinute = digits(iso, pos + 4, pos + 6);
+            else if (pos + 5 <= iso.length()) zoneMinute = digits(iso, pos + 3, pos + 5);
+            if (zoneHour < 0 || zoneMinute < 0) return day;
+            offsetMs = (zoneHour * 60L + zoneMinute) * 60 * 1000 * (zone == '-' ? -1 : 1);
+        } else {
+            return day;
+        }
+        long utcMillis = day * DAY_MS + ((hour * 60L + minute) * 60 + second) * 1000 - offsetMs;
+        return ofMillis(utcMillis);
+    }
+
+    static String format(int epochDay) {
+        if (epochDay == NONE) return "";
+        int[] ymd = toCivil(epochDay);
+        char[] out = new char[10];
+        writeDigits(out, 0, ymd[0], 4);
+        out[4] = '-';
+        writeDigits(out, 5, ymd[1], 2);
+        out[7] = '-';
+        writeDigits(out, 8, ymd[2], 2);
+        return new String(out);
+    }
+
+    // 기기 시간대 기준으로 해당 시각이 속한 날
+    static int ofMillis(long utcMillis) {
+        long localMillis = utcMillis + TimeZone.getDefault().getOffset(utcMillis);
+        return (int) Math.floorDiv(localMillis, DAY_MS);
+    }
+
+    static int today() {
+        return ofMillis(System.currentTimeMillis());
+    }
+
+    static String todayKey() {
+        return format(today());
+    }
+
+    // 필드 하나만 필요한 곳이 많으므로 toCivil 배열을 만들지 않고 그 필드만 계산한다
+
+    static int year(int epochDay) {
+        int z = epochDay + 719468;
+        int era = Math.floorDiv(z, 146097);
+        int doe = z - era * 146097;
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        return yoe + era * 400 + (mp >= 10 ? 1 : 0);
+    }
+
+    // 1-12
+    static int month(int epochDay) {
+        int mp = (5 * marchDayOfYear(epochDay) + 2) / 153;
+        return mp < 10 ? mp + 3 : mp - 9;
+    }
+
+    static int dayOfMonth(int epochDay) {
+        int doy = marchDayOfYear(epochDay);
+        int mp = (5 * doy + 2) / 153;
+        return doy - (153 * mp + 2) / 5 + 1;
+    }
+
+    // 해당 날짜가 속한 주의 일요일
+    static int startOfWeek(int epochDay) {
+        return epochDay - (dayOfWeek(epochDay) - Calendar.SUNDAY);
+    }
+
+    // 달의 1일 (month 는 1-12, 범위를 넘으면 연도로 넘긴다)
+    static int firstOfMonth(int year, int month) {
+        int index = year * 12 + (month - 1);
+        return fromCivil(Math.floorDiv(index, 12), Math.floorMod(index, 12) + 1, 1);
+    }
+
+    // ===== 표시 라벨 =====
+
+    // "M/d (E)" (한국어 요일)
+    static String shortLabel(int epochDay) {
+        int[] ymd = toCivil(epochDay);
+        return ymd[1] + "/" + ymd[2] + " (" + KOREAN_DAY_NAMES[dayOfWeek(epochDay) - 1] + ")";
+    }
+
+    // "yyyy년 M월"
+    static String monthTitle(int epochDay) {
+        int[] ymd = toCivil(epochDay);
+        return ymd[0] + "년 " + ymd[1] + "월";
+    }
+
+    // "yyyy년 M월 W주" (일요일 시작, 1일이 속한 주가 1주)
+    static String weekTitle(int epochDay) {
+        int[] ymd = toCivil(epochDay);
+        int firstDayOffset = dayOfWeek(epochDay - (ymd[2] - 1)) - Calendar.SUNDAY;
+        int weekOfMonth = (ymd[2] - 1 + firstDayOffset) / 7 + 1;
+        return ymd[0] + "년 " + ymd[1] + "월 " + weekOfMonth + "주";
+    }
+
+    // "MMM yyyy" (영문 월)
+    static String englishMonthTitle(int epochDay) {
+        int[] ymd = toCivil(epochDay);
+        return ENGLISH_MONTH_NAMES[ymd[1] - 1] + " " + ymd[0];
+    }
+
+    // 요일 (Calendar.SUNDAY=1 ... SATURDAY=7), 1970-01-01 은 목요일
+    static int dayOfWeek(int epochDay) {
+        return Math.floorMod(epochDay + 4, 7) + 1;
+    }
+
+    static int fromCivil(int year, int month, int day) {
+        // Howard Hinnant 의 days_from_civil
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yoe = y - era * 400;
+        int mp = (month + 9) % 12;
+        int doy = (153 * mp + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    // epoch day → {year, month(1-12), day}
+    static int[] toCivil(int epochDay) {
+        int z = epochDay + 719468;
+        int era = Math.floorDiv(z, 146097);
+        int doe = z - era * 146097;
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int day = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return new int[] {year, month, day};
+    }
+
+    // 3월 1일부터 센 해 안의 날 (0-365, toCivil 의 doy)
+    private static int marchDayOfYear(int epochDay) {
+        int z = epochDay + 719468;
+        int doe = z - Math.floorDiv(z, 146097) * 146097;
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        return doe - (365 * yoe + yoe / 4 - yoe / 100);
+    }
+
+    private static int digits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static void writeDigits(char[] out, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            out[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
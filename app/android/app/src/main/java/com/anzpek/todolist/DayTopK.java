@@ -0,0 +1,122 @@
+package com.anzpek.todolist;
+
+/**
+ * 날짜별 상위 K개 + 전체 개수 (달력형 위젯의 "+N" 칸용)
+ *
+ * [fromDay, toDay] 의 날짜마다 휴가, 할일, 반복 규칙 발생일을 모아서
+ * 순서(휴가 → urgent → high → medium → low, 같은 순위는 넣은 순서)대로 앞의 K개만 보관하고
+ * 나머지는 개수만 센다. 항목을 리스트로 만들거나 정렬하지 않으므로 바쁜 날도 K칸 비용만 든다.
+ * k = 0 이면 개수만 센다 (달력 위젯의 점 표시).
+ *
+ * 제목/우선순위는 보관한 번호로 스냅샷에서 그때 읽는다.
+ */
+final class DayTopK {
+
+    // 보관 항목 번호: (원본 번호 << 2) | 출처
+    private static final int SOURCE_VACATION = 0;
+    private static final int SOURCE_TASK = 1;
+    private static final int SOURCE_RULE = 2;
+
+    // 순위: 휴가 0, 그 다음 우선순위 코드 + 1
+    private static final int RANK_VACATION = 0;
+
+    private final WidgetSnapshot snapshot;
+    final int fromDay;
+    final int k;
+    private final int[] count;
+    // 날짜 d 의 j번째 항목은 [(d - fromDay) * k + j]
+    private final byte[] ranks;
+    private final int[] items;
+
+    private DayTopK(WidgetSnapshot snapshot, int fromDay, int days, int k) {
+        this.snapshot = snapshot;
+        this.fromDay = fromDay;
+        this.k = k;
+        this.count = new int[days];
+        this.ranks = new byte[days * k];
+        this.items = new int[days * k];
+    }
+
+    /**
+     * @param todayDay 이월 기준일 (반복 규칙은 오늘 이후만 전개)
+     */
+    static DayTopK query(WidgetSnapshot snapshot, int fromDay, int toDay, int todayDay, int k, HolidayCalendar holidays) {
+        DayTopK result = new DayTopK(snapshot, fromDay, toDay - fromDay + 1, k);
+
+        // 휴가 (순위가 가장 높으므로 들어온 순서대로 앞칸을 채운다)
+        VacationIndex vacations = snapshot.vacations();
+        for (int day = fromDay; day <= toDay; day++) {
+            for (int e = vacations.begin(day); e < vacations.end(day); e++) {
+                result.offer(day, RANK_VACATION, (vacations.range(e) << 2) | SOURCE_VACATION);
+            }
+        }
+
+        // 할일 (구간 인덱스로 보이는 범위에 걸친 것만 받아서 펼침)
+        TaskTable table = snapshot.tasks();
+        TaskIntervalIndex intervals = snapshot.intervals();
+        for (int i : intervals.query(fromDay, toDay, todayDay)) {
+            int rank = table.isVacation(i) ? RANK_VACATION : table.priority[i] + 1;
+            int from = Math.max(intervals.spanStart(i), fromDay);
+            int to = Math.min(intervals.spanEnd(i, todayDay), toDay);
+            for (int day = from; day <= to; day++) {
+                result.offer(day, rank, (i << 2) | SOURCE_TASK);
+            }
+        }
+
+        // 반복 규칙: 오늘 이후의 보이는 날짜만 전개 (오늘 이전은 JS 인스턴스가 완료 상태와 함께 온다)
+        RecurrenceEngine recurrence = snapshot.recurrence();
+        for (int r = 0; r < recurrence.count; r++) {
+            int rank = recurrence.priority[r] + 1;
+            for (int day : recurrence.expand(r, Math.max(fromDay, todayDay), toDay, holidays)) {
+                result.offer(day, rank, (r << 2) | SOURCE_RULE);
+            }
+        }
+        return result;
+    }
+
+    // 개수는 항상 세고, 앞 K칸에는 순위가 더 높을 때만 끼워 넣는다 (같은 순위는 먼저 온 쪽이 앞)
+    private void offer(int day, int rank, int item) {
+        int d = day - fromDay;
+        int size = Math.min(count[d]++, k);
+        int base = d * k;
+        if (size == k) {
+            if (k == 0 || rank >= ranks[base + k - 1]) return;
+            size = k - 1; // 마지막 칸을 밀어낸다
+        }
+        int at = base + size;
+        while (at > base && ranks[at - 1] > rank) {
+            ranks[at] = ranks[at - 1];
+            items[at] = items[at - 1];
+            at--;
+        }
+        ranks[at] = (byte) rank;
+        items[at] = item;
+    }
+
+    // 그 날의 전체 개수
+    int count(int day) { return count[day - fromDay]; }
+
+    // 보관된 항목 수 (min(count, k))
+    int size(int day) { return Math.min(count[day - fromDay], k); }
+
+    boolean isVacation(int day, int j) { return ranks[(day - fromDay) * k + j] == RANK_VACATION; }
+
+    String title(int day, int j) {
+        int item = items[(day - fromDay) * k + j];
+        switch (item & 3) {
+            case SOURCE_VACATION: return snapshot.vacationTitle(item >> 2);
+            case SOURCE_TASK: return snapshot.tasks().title(item >> 2);
+            default: return snapshot.recurrence().title(item >> 2);
+        }
+    }
+
+    // 휴가 구간은 "vacation", 나머지는 우선순위 이름
+    String priority(int day, int j) {
+        int item = items[(day - fromDay) * k + j];
+        switch (item & 3) {
+            case SOURCE_VACATION: return "vacation";
+            case SOURCE_TASK: return snapshot.tasks().priorityName(item >> 2);
+            default: return snapshot.recurrence().priorityName(item >> 2);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.anzpek.todolist;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.graphics.Color;
+import android.view.View;
+import android.widget.RemoteViews;
+import android.widget.RemoteViewsService;
+
+public class FullCalendarRemoteViewsService extends RemoteViewsService {
+    @Override
+    public RemoteViewsFactory onGetViewFactory(Intent intent) {
+        return new FullCalendarRemoteViewsFactory(this.getApplicationContext(), intent);
+    }
+}
+
+/**
+ * 풀캘린더 35칸 그리드 어댑터 (위젯마다 하나)
+ * - 칸마다 날짜 + 앞 MAX_TASKS개 할일 + "+N개"
+ * - 할일 줄은 채워진 만큼만 addView 하므로 빈 칸은 날짜 하나만 보낸다
+ */
+class FullCalendarRemoteViewsFactory implements RemoteViewsService.RemoteViewsFactory {
+    private final Context context;
+    private MonthGrid grid;
+    private DayTopK top;
+    private final RowViewCache cellViews = new RowViewCache();
+
+    private static final String PREFS_NAME = "WidgetPrefs";
+    private static final int MAX_TASKS = 8; // 각 셀에 8개 할일
+
+    public FullCalendarRemoteViewsFactory(Context context, Intent intent) {
+        this.context = context;
+    }
+
+    @Override
+    public void onCreate() {
+        loadCells();
+    }
+
+    @Override
+    public void onDataSetChanged() {
+        cellViews.newGeneration();
+        loadCells();
+    }
+
+    private void loadCells() {
+        try {
+            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            int todayDay = DateKeys.today();
+            int displayMonth = prefs.getInt("fullcal_widget_month", DateKeys.month(todayDay) - 1);
+            int displayYear = prefs.getInt("fullcal_widget_year", DateKeys.year(todayDay));
+
+            // 위젯이 그린 제목과 같은 그리드 (MonthGrid 캐시 공유)
+            HolidayCalendar holidays = HolidayCalendar.get(context);
+            MonthGrid grid = MonthGrid.get(displayYear, displayMonth + 1, FullCalendarWidgetProvider.TOTAL_CELLS, holidays);
+
+            // 칸마다 앞 MAX_TASKS개 + 전체 개수만 계산
+            WidgetSnapshot snapshot = WidgetDataRepository.get(context);
+            this.top = DayTopK.query(snapshot, grid.firstDay, grid.lastDay(), todayDay, MAX_TASKS, holidays);
+            this.grid = grid;
+        } catch (Exception e) {
+            android.util.Log.e("FullCalFactory", "Error loading cells: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void onDestroy() {
+        grid = null;
+        top = null;
+        cellViews.clear();
+    }
+
+    @Override
+    public int getCount() {
+        return grid != null && top != null ? FullCalendarWidgetProvider.TOTAL_CELLS : 0;
+    }
+
+    @Override
+    public RemoteViews getViewAt(int position) {
+        if (grid == null || top == null || position >= FullCalendarWidgetProvider.TOTAL_CELLS) {
+            return null;
+        }
+
+        // 날짜와 칸 내용이 그대로인 칸은 전에 만든 RemoteViews 를 다시 쓴다
+        long id = grid.day(position);
+        long version = cellVersion(position);
+        RemoteViews cell = cellViews.get(id, version);
+        if (cell == null) {
+            cell = buildCell(position);
+            cellViews.put(id, version, cell);
+        }
+        return cell;
+    }
+
+    private RemoteViews buildCell(int position) {
+        RemoteViews cell = new RemoteViews(context.getPackageName(), R.layout.widget_full_cal_cell);
+        cell.setTextViewText(R.id.cell_day, grid.dayLabels[position]);
+
+        if (grid.is(position, MonthGrid.TODAY)) cell.setTextColor(R.id.cell_day, Color.parseColor("#3B82F6"));
+        else if (grid.is(position, MonthGrid.OTHER_MONTH)) cell.setTextColor(R.id.cell_day, Color.parseColor("#6B7280"));
+        else if (grid.is(position, MonthGrid.SUNDAY | MonthGrid.HOLIDAY)) cell.setTextColor(R.id.cell_day, Color.parseColor("#EF4444"));
+        else if (grid.is(position, MonthGrid.SATURDAY)) cell.setTextColor(R.id.cell_day, Color.parseColor("#3B82F6"));
+        else cell.setTextColor(R.id.cell_day, Color.WHITE);
+
+        int day = grid.day(position);
+        int shown = top.size(day);
+        for (int j = 0; j < shown; j++) {
+            RemoteViews line = new RemoteViews(context.getPackageName(), R.layout.widget_full_cal_task);
+            line.setTextViewText(R.id.cell_task, top.title(day, j));
+            line.setInt(R.id.cell_task, "setBackgroundResource", TaskRowViews.borderDrawable(top.priority(day, j), top.isVacation(day, j)));
+            cell.addView(R.id.cell_tasks, line);
+        }
+
+        int total = top.count(day);
+        if (total > shown) {
+            cell.setTextViewText(R.id.cell_more, "+" + (total - shown) + "개");
+            cell.setViewVisibility(R.id.cell_more, View.VISIBLE);
+        }
+
+        return cell;
+    }
+
+    @Override
+    public RemoteViews getLoadingView() {
+        return null;
+    }
+
+    @Override
+    public int getViewTypeCount() {
+        return 1;
+    }
+
+    // 안정 id: 칸의 날짜 (내용은 cellVersion 으로 따로 비교)
+    @Override
+    public long getItemId(int position) {
+        if (grid == null || top == null || position >= FullCalendarWidgetProvider.TOTAL_CELLS) return position;
+        return grid.day(position);
+    }
+
+    // 칸 내용 버전: 할일 개수 + 날짜 색 플래그 + 보이는 할일
+    private long cellVersion(int position) {
+        int day = grid.day(position);
+        WidgetHash hash = new WidgetHash().add(day).add(top.count(day)).add(grid.flags[position]);
+        for (int j = 0; j < top.size(day); j++) {
+            hash.add(top.title(day, j)).add(top.priority(day, j)).add(top.isVacation(day, j));
+        }
+        return hash.value();
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return true;
+    }
+}
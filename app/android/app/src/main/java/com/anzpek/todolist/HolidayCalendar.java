@@ -0,0 +1,147 @@
+package com.anzpek.todolist;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 공휴일 달력 (연도마다 epoch day 비트셋 하나)
+ *
+ * - 기본 공휴일: JS holidays.ts 의 기본 목록과 같은 연도별 표, 표에 없는 연도는 양력 고정 공휴일만
+ * - 사용자 지정 공휴일: 플러그인 setCustomHolidays 로 받아 WidgetPrefs 에 저장 (매년 반복 여부 포함)
+ *
+ * 비트셋은 연도를 처음 조회할 때 한 번 만들고, 이후 조회는 비트 하나를 읽는다.
+ * 사용자 지정 목록이 바뀌면 인스턴스를 통째로 새로 만든다 (읽는 쪽은 current 를 그대로 쓰면 된다).
+ */
+final class HolidayCalendar {
+
+    private static final String PREFS_NAME = "WidgetPrefs";
+    private static final String CUSTOM_KEY = "widget_custom_holidays";
+    private static final int BASE_YEAR = 1970;
+    private static final int YEAR_SPAN = 200;
+
+    // 양력 고정 공휴일 (월 * 100 + 일): 신정, 삼일절, 어린이날, 현충일, 광복절, 개천절, 한글날, 크리스마스
+    private static final int[] FIXED = {101, 301, 505, 606, 815, 1003, 1009, 1225};
+
+    // 연도별 기본 공휴일 (음력 명절/선거일/대체공휴일 포함, holidays.ts getDefaultHolidays 와 같음)
+    private static final String[][] BUILT_IN = {
+        {"2024-01-01", "2024-02-09", "2024-02-10", "2024-02-11", "2024-02-12", "2024-03-01", "2024-04-10",
+            "2024-05-05", "2024-05-06", "2024-05-15", "2024-06-06", "2024-08-15", "2024-09-16", "2024-09-17",
+            "2024-09-18", "2024-10-03", "2024-10-09", "2024-12-25"},
+        {"2025-01-01", "2025-01-28", "2025-01-29", "2025-01-30", "2025-03-01", "2025-05-05", "2025-05-13",
+            "2025-06-06", "2025-08-15", "2025-10-05", "2025-10-06", "2025-10-07", "2025-10-08", "2025-10-03",
+            "2025-10-09", "2025-12-25"},
+        {"2026-01-01", "2026-02-16", "2026-02-17", "2026-02-18", "2026-03-01", "2026-05-05", "2026-05-02",
+            "2026-06-06", "2026-08-15", "2026-09-24", "2026-09-25", "2026-09-26", "2026-10-03", "2026-10-09",
+            "2026-12-25"},
+    };
+
+    private static volatile HolidayCalendar current;
+
+    // 사용자 지정: 특정 날짜 (epoch day), 매년 반복 (월 * 100 + 일)
+    private final int[] customDays;
+    private final int[] customMonthDays;
+    private final AtomicReferenceArray<long[]> years = new AtomicReferenceArray<>(YEAR_SPAN);
+
+    private HolidayCalendar(int[] customDays, int[] customMonthDays) {
+        this.customDays = customDays;
+        this.customMonthDays = customMonthDays;
+    }
+
+    /**
+     * 현재 공휴일 달력 (처음 한 번 WidgetPrefs 의 사용자 지정 목록을 읽는다)
+     */
+    static HolidayCalendar get(Context context) {
+        HolidayCalendar calendar = current;
+        if (calendar != null) return calendar;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        calendar = parse(prefs.getString(CUSTOM_KEY, ""));
+        current = calendar;
+        return calendar;
+    }
+
+    /**
+     * 사용자 지정 공휴일 교체
+     * @param encoded "yyyy-MM-dd" (그 날만) 또는 "*yyyy-MM-dd" (매년 같은 월/일) 를 쉼표로 이은 문자열
+     * @return 목록이 바뀌었으면 true
+     */
+    static boolean setCustom(Context context, String encoded) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (encoded.equals(prefs.getString(CUSTOM_KEY, "")) && current != null) return false;
+        prefs.edit().putString(CUSTOM_KEY, encoded).apply();
+        current = parse(encoded);
+        return true;
+    }
+
+    // 사용자 지정 목록 문자열 → 달력 (setCustom 형식, 테스트에서도 사용)
+    static HolidayCalendar parse(String encoded) {
+        List<Integer> days = new ArrayList<>();
+        List<Integer> monthDays = new ArrayList<>();
+        for (String entry : encoded.split(",")) {
+            boolean recurring = entry.startsWith("*");
+            int day = DateKeys.parse(recurring ? entry.substring(1) : entry);
+            if (day == DateKeys.NONE) continue;
+            if (recurring) monthDays.add(DateKeys.month(day) * 100 + DateKeys.dayOfMonth(day));
+            else days.add(day);
+        }
+        int[] customDays = new int[days.size()];
+        for (int i = 0; i < customDays.length; i++) customDays[i] = days.get(i);
+        int[] customMonthDays = new int[monthDays.size()];
+        for (int i = 0; i < customMonthDays.length; i++) customMonthDays[i] = monthDays.get(i);
+        return new HolidayCalendar(customDays, customMonthDays);
+    }
+
+    boolean isHoliday(int epochDay) {
+        if (epochDay == DateKeys.NONE) return false;
+        int year = DateKeys.year(epochDay);
+        int index = year - BASE_YEAR;
+        if (index < 0 || index >= YEAR_SPAN) return false;
+        long[] bits = years.get(index);
+        if (bits == null) {
+            bits = buildYear(year);
+            years.compareAndSet(index, null, bits);
+        }
+        int offset = epochDay - DateKeys.firstOfMonth(year, 1);
+        return (bits[offset >> 6] & (1L << offset)) != 0;
+    }
+
+    // 주말도 공휴일도 아닌 날
+    boolean isWorkday(int epochDay) {
+        int dayOfWeek = DateKeys.dayOfWeek(epochDay);
+        return dayOfWeek != 1 && dayOfWeek != 7 && !isHoliday(epochDay);
+    }
+
+    private long[] buildYear(int year) {
+        int yearStart = DateKeys.firstOfMonth(year, 1);
+        long[] bits = new long[6]; // 366일
+
+        String[] table = null;
+        for (String[] candidate : BUILT_IN) {
+            if (DateKeys.year(DateKeys.parse(candidate[0])) == year) table = candidate;
+        }
+        if (table != null) {
+            for (String key : table) set(bits, DateKeys.parse(key) - yearStart);
+        } else {
+            for (int monthDay : FIXED) setMonthDay(bits, year, yearStart, monthDay);
+        }
+        for (int day : customDays) {
+            if (DateKeys.year(day) == year) set(bits, day - yearStart);
+        }
+        for (int monthDay : customMonthDays) setMonthDay(bits, year, yearStart, monthDay);
+        return bits;
+    }
+
+    // 그 해에 없는 날짜(평년 2/29)는 건너뛴다
+    private static void setMonthDay(long[] bits, int year, int yearStart, int monthDay) {
+        int month = monthDay / 100;
+        int day = DateKeys.fromCivil(year, month, monthDay % 100);
+        if (DateKeys.month(day) == month) set(bits, day - yearStart);
+    }
+
+    private static void set(long[] bits, int offset) {
+        bits[offset >> 6] |= 1L << offset;
+    }
+}
@@ -0,0 +1,67 @@
+package com.anzpek.todolist;
+
+/**
+ * 칸반 위젯의 우선순위별 열 (스냅샷과 날짜마다 한 번 생성)
+ *
+ * 그 날 그리드에 보이는 할일(휴가 제외)을 우선순위 코드로 계수 정렬해서
+ * 네 열(urgent/high/medium/low)이 같은 배열의 구간을 나눠 쓴다.
+ * 열 안의 순서는 스냅샷 순서 그대로다 (안정 정렬).
+ *
+ * 사용:
+ *   for (int k = partition.begin(code); k < partition.end(code); k++) table.title(partition.task(k));
+ */
+final class KanbanPartition {
+
+    static final int COLUMNS = 4;
+
+    final int day;
+    // 열 code 의 할일은 order[columnStart[code]] ~ order[columnStart[code + 1] - 1]
+    private final int[] columnStart;
+    private final int[] order;
+
+    private KanbanPartition(int day, int[] columnStart, int[] order) {
+        this.day = day;
+        this.columnStart = columnStart;
+        this.order = order;
+    }
+
+    static KanbanPartition build(WidgetSnapshot snapshot, int day) {
+        TaskTable table = snapshot.tasks();
+        int[] hits = snapshot.intervals().query(day, day, day);
+
+        // 열별 개수 -> 시작 위치 -> 채우기
+        int[] columnStart = new int[COLUMNS + 1];
+        int kept = 0;
+        for (int i : hits) {
+            if (table.isVacation(i)) continue;
+            columnStart[column(table, i) + 1]++;
+            kept++;
+        }
+        for (int c = 0; c < COLUMNS; c++) columnStart[c + 1] += columnStart[c];
+
+        int[] order = new int[kept];
+        int[] fill = new int[COLUMNS];
+        System.arraycopy(columnStart, 0, fill, 0, COLUMNS);
+        for (int i : hits) {
+            if (table.isVacation(i)) continue;
+            order[fill[column(table, i)]++] = i;
+        }
+        return new KanbanPartition(day, columnStart, order);
+    }
+
+    // 알 수 없는 우선순위는 medium 열로
+    private static int column(TaskTable table, int i) {
+        int code = table.priority[i];
+        return code >= 0 && code < COLUMNS ? code : WidgetSnapshot.PRIORITY_MEDIUM;
+    }
+
+    int begin(int column) { return columnStart[column]; }
+
+    int end(int column) { return columnStart[column + 1]; }
+
+    // 열 머리 배지 숫자
+    int count(int column) { return columnStart[column + 1] - columnStart[column]; }
+
+    // 할일 번호 (TaskTable 인덱스)
+    int task(int k) { return order[k]; }
+}
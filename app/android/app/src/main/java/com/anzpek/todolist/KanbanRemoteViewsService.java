@@ -2,19 +2,11 @@ package com.anzpek.todolist;
 
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
-import android.graphics.Color;
 import android.widget.RemoteViews;
 import android.widget.RemoteViewsService;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.List;
-import java.util.Locale;
 
 public class KanbanRemoteViewsService extends RemoteViewsService {
     @Override
@@ -27,9 +19,10 @@ class KanbanRemoteViewsFactory implements RemoteViewsService.RemoteViewsFactory
     private Context context;
     private String priority;
     private List<String> tasks = new ArrayList<>();
-    
-    private static final String PREFS_NAME = "WidgetPrefs";
-    private static final String PREF_PREFIX_KEY = "todo_list_";
+    // 행별 안정 id (할일 id) 와 내용 버전 (제목)
+    private List<Long> itemIds = new ArrayList<>();
+    private List<Long> itemVersions = new ArrayList<>();
+    private final RowViewCache rowViews = new RowViewCache();
 
     public KanbanRemoteViewsFactory(Context context, Intent intent) {
         this.context = context;
@@ -44,77 +37,40 @@ class KanbanRemoteViewsFactory implements RemoteViewsService.RemoteViewsFactory
 
     @Override
     public void onDataSetChanged() {
+        rowViews.newGeneration();
         loadTasks();
     }
 
     private void loadTasks() {
         tasks.clear();
+        itemIds.clear();
+        itemVersions.clear();
         
         try {
-            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            String dataStr = prefs.getString(PREF_PREFIX_KEY + "data", "");
+            // 네 열이 같은 분할을 쓴다 (스냅샷/날짜마다 한 번만 계산)
+            WidgetSnapshot snapshot = WidgetDataRepository.get(context);
+            TaskTable table = snapshot.tasks();
+            KanbanPartition partition = snapshot.kanban(DateKeys.today());
+            int column = WidgetSnapshot.priorityCode(this.priority);
             
-            if (dataStr != null && !dataStr.isEmpty() && dataStr.startsWith("{")) {
-                JSONObject combinedData = new JSONObject(dataStr);
-                JSONArray calendarArray = combinedData.optJSONArray("calendar");
-                
-                if (calendarArray != null) {
-                    SimpleDateFormat dateKeyFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
-                    Calendar today = Calendar.getInstance();
-                    String todayKey = dateKeyFormat.format(today.getTime());
-                    
-                    for (int i = 0; i < calendarArray.length(); i++) {
-                        JSONObject todo = calendarArray.getJSONObject(i);
-                        boolean isVacation = todo.optBoolean("isVacation", false);
-                        boolean completed = todo.optBoolean("completed", false);
-                        
-                        if (isVacation || completed) continue;
-                        
-                        String taskPriority = todo.optString("priority", "medium");
-                        if (!taskPriority.equals(this.priority)) continue;
-                        
-                        // 오늘 날짜에 표시해야 하는 할일인지 판단
-                        if (!shouldShowOnDate(todo, todayKey)) continue;
-                        
-                        String title = todo.optString("title", "");
-                        tasks.add(title);
-                    }
-                }
+            for (int k = partition.begin(column); k < partition.end(column); k++) {
+                int task = partition.task(k);
+                String title = table.title(task);
+                tasks.add(title);
+                itemIds.add(WidgetHash.rowId(table.id(task)));
+                itemVersions.add(WidgetHash.rowContent(title, this.priority, false, false));
             }
         } catch (Exception e) {
             android.util.Log.e("KanbanFactory", "Error loading tasks: " + e.getMessage());
         }
     }
     
-    private boolean shouldShowOnDate(JSONObject todo, String todayKey) {
-        try {
-            String startDate = todo.optString("startDate", "");
-            String dueDate = todo.optString("dueDate", "");
-            
-            String startDateKey = (startDate != null && startDate.length() >= 10) ? startDate.substring(0, 10) : "";
-            String dueDateKey = (dueDate != null && dueDate.length() >= 10) ? dueDate.substring(0, 10) : "";
-            
-            boolean hasStart = !startDateKey.isEmpty();
-            boolean hasDue = !dueDateKey.isEmpty();
-            
-            if (hasStart && hasDue) {
-                return todayKey.compareTo(startDateKey) >= 0 && todayKey.compareTo(dueDateKey) <= 0;
-            }
-            if (hasStart && !hasDue) {
-                return todayKey.compareTo(startDateKey) >= 0;
-            }
-            if (!hasStart && hasDue) {
-                return todayKey.equals(dueDateKey);
-            }
-            return false;
-        } catch (Exception e) {
-            return false;
-        }
-    }
-
     @Override
     public void onDestroy() {
         tasks.clear();
+        itemIds.clear();
+        itemVersions.clear();
+        rowViews.clear();
     }
 
     @Override
@@ -128,9 +84,13 @@ class KanbanRemoteViewsFactory implements RemoteViewsService.RemoteViewsFactory
             return null;
         }
         
-        RemoteViews rv = new RemoteViews(context.getPackageName(), R.layout.widget_kanban_item);
-        rv.setTextViewText(R.id.kanban_item_text, tasks.get(position));
-        
+        // id 와 제목이 그대로인 행은 전에 만든 RemoteViews 를 다시 쓴다
+        RemoteViews rv = rowViews.get(itemIds.get(position), itemVersions.get(position));
+        if (rv == null) {
+            rv = new RemoteViews(context.getPackageName(), R.layout.widget_kanban_item);
+            rv.setTextViewText(R.id.kanban_item_text, tasks.get(position));
+            rowViews.put(itemIds.get(position), itemVersions.get(position), rv);
+        }
         return rv;
     }
 
@@ -146,7 +106,7 @@ class KanbanRemoteViewsFactory implements RemoteViewsService.RemoteViewsFactory
 
     @Override
     public long getItemId(int position) {
-        return position;
+        return position < itemIds.size() ? itemIds.get(position) : position;
     }
 
     @Override
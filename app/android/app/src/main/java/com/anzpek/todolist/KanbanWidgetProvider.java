@@ -45,6 +45,13 @@ public class KanbanWidgetProvider extends AppWidgetProvider {
             setupListView(context, views, R.id.medium_list, "medium", appWidgetId);
             setupListView(context, views, R.id.low_list, "low", appWidgetId);
             
+            // 열 머리 개수 배지 (리스트 팩토리와 같은 분할을 그대로 씀)
+            KanbanPartition partition = WidgetDataRepository.get(context).kanban(DateKeys.today());
+            setHeader(views, R.id.urgent_header, "Urgent", partition.count(WidgetSnapshot.PRIORITY_URGENT));
+            setHeader(views, R.id.high_header, "High", partition.count(WidgetSnapshot.PRIORITY_HIGH));
+            setHeader(views, R.id.medium_header, "Medium", partition.count(WidgetSnapshot.PRIORITY_MEDIUM));
+            setHeader(views, R.id.low_header, "Low", partition.count(WidgetSnapshot.PRIORITY_LOW));
+            
         } catch (Exception e) {
             android.util.Log.e("KanbanWidget", "Error: " + e.getMessage());
         }
@@ -63,6 +70,10 @@ public class KanbanWidgetProvider extends AppWidgetProvider {
         views.setEmptyView(listViewId, android.R.id.empty);
     }
     
+    private static void setHeader(RemoteViews views, int headerId, String label, int count) {
+        views.setTextViewText(headerId, count > 0 ? label + " (" + count + ")" : label);
+    }
+    
     @Override
     public void onReceive(Context context, Intent intent) {
         super.onReceive(context, intent);
@@ -58,6 +58,21 @@ public class MainActivity extends BridgeActivity {
                         );
                     }
                 });
+            } else if (url.startsWith("todolist://date/")) {
+                // 전체 달력 위젯(비트맵 모드) 날짜 칸 → 그 날짜 보기
+                // (앱이 꺼져 있던 경우는 웹 쪽에서 App.getLaunchUrl 로 같은 URL 을 처리한다)
+                final String dateKey = intent.getData().getLastPathSegment();
+                if (dateKey != null && dateKey.matches("\\d{4}-\\d{2}-\\d{2}")) {
+                    Log.d("MainActivity", "Opening date via JavaScript: " + dateKey);
+                    runOnUiThread(() -> {
+                        if (getBridge() != null && getBridge().getWebView() != null) {
+                            getBridge().getWebView().evaluateJavascript(
+                                "window.dispatchEvent(new CustomEvent('openWidgetDate', { detail: { date: '" + dateKey + "' } }));",
+                                null
+                            );
+                        }
+                    });
+                }
             } else if (url.contains("todolist://toggle")) {
                 // Bridge에 전달 (toggle은 기존 방식 유지)
                 if (getBridge() != null) {
@@ -0,0 +1,242 @@
+package com.anzpek.todolist;
+
+import android.appwidget.AppWidgetManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.os.Bundle;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.DisplayMetrics;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 전체 달력 위젯의 비트맵 렌더링 모드
+ *
+ * 35칸(날짜, 주말/공휴일 색, 우선순위 테두리 할일, "+N개")을 위젯 크기에 맞춘 비트맵 한 장에 그려서
+ * setImageViewBitmap 한 번으로 보낸다. 칸에 들어가는 할일 수는 고정 슬롯이 아니라 칸 높이로 정해진다.
+ *
+ * 그리기는 단일 백그라운드 스레드에서 하고 (연월, 오늘, 스냅샷 버전, 픽셀 크기, 글꼴 배율) 별로 캐시한다.
+ * 캐시에 없으면 null 을 돌려주고 렌더링을 걸어 두었다가, 끝나면 기다리던 위젯들을 다시 갱신한다
+ * (그 사이에는 이전 이미지가 그대로 보인다).
+ */
+final class MonthBitmapRenderer {
+
+    private static final int ROWS = 5;
+    private static final int COLUMNS = 7;
+    private static final int MAX_TASKS = 16; // 칸 높이가 허락하는 만큼만 그린다
+
+    // 위젯 크기 중 그리드가 아닌 부분 (바깥 패딩 8dp x 2, 상단 네비게이션 줄, 요일 줄)
+    private static final int CHROME_WIDTH_DP = 16;
+    private static final int CHROME_HEIGHT_DP = 16 + 34 + 20;
+    // 크기 옵션이 없을 때 (full_calendar_widget_info 의 최소 크기)
+    private static final int DEFAULT_WIDTH_DP = 300;
+    private static final int DEFAULT_HEIGHT_DP = 250;
+    // 한 장 최대 픽셀 수 (넘으면 줄여 그리고 fitXY 로 늘린다), 캐시 총 바이트
+    private static final int MAX_PIXELS = 1024 * 1024;
+    private static final int CACHE_BYTES = 8 * 1024 * 1024;
+
+    // 할일 테두리 색 (task_border_* drawable 과 같은 색)
+    private static final int URGENT = Color.parseColor("#EF4444");
+    private static final int HIGH = Color.parseColor("#F59E0B");
+    private static final int MEDIUM = Color.parseColor("#3B82F6");
+    private static final int LOW = Color.parseColor("#10B981");
+    private static final int DEFAULT = Color.parseColor("#8B5CF6");
+
+    private static MonthBitmapRenderer instance;
+
+    private final Context context;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final LruCache<String, Bitmap> cache = new LruCache<String, Bitmap>(CACHE_BYTES) {
+        @Override
+        protected int sizeOf(String key, Bitmap bitmap) {
+            return bitmap.getByteCount();
+        }
+    };
+    // 렌더링 중인 키 → 끝나면 다시 갱신할 위젯 id
+    private final HashMap<String, List<Integer>> rendering = new HashMap<>();
+    private HolidayCalendar cachedHolidays;
+
+    private MonthBitmapRenderer(Context context) {
+        this.context = context;
+    }
+
+    static synchronized MonthBitmapRenderer get(Context context) {
+        if (instance == null) {
+            instance = new MonthBitmapRenderer(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * 그 위젯 크기의 캐시된 비트맵 (없으면 null, 렌더링이 끝나면 위젯을 다시 갱신한다)
+     */
+    Bitmap request(int appWidgetId, final MonthGrid grid) {
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        Bundle options = AppWidgetManager.getInstance(context).getAppWidgetOptions(appWidgetId);
+        // 세로 화면 기준: 너비는 MIN_WIDTH, 높이는 MAX_HEIGHT
+        int widthDp = options != null ? options.getInt(AppWidgetManager.OPTION_APPWIDGET_MIN_WIDTH, 0) : 0;
+        int heightDp = options != null ? options.getInt(AppWidgetManager.OPTION_APPWIDGET_MAX_HEIGHT, 0) : 0;
+        if (widthDp <= 0) widthDp = DEFAULT_WIDTH_DP;
+        if (heightDp <= 0) heightDp = DEFAULT_HEIGHT_DP;
+
+        float width = Math.max(widthDp - CHROME_WIDTH_DP, COLUMNS) * metrics.density;
+        float height = Math.max(heightDp - CHROME_HEIGHT_DP, ROWS) * metrics.density;
+        float scale = Math.min(1f, (float) Math.sqrt(MAX_PIXELS / (width * height)));
+        final int widthPx = Math.round(width * scale);
+        final int heightPx = Math.round(height * scale);
+        final float density = metrics.density * scale;
+        final float scaledDensity = metrics.scaledDensity * scale;
+
+        final WidgetSnapshot snapshot = WidgetDataRepository.get(context);
+        final HolidayCalendar holidays = HolidayCalendar.get(context);
+        final int todayDay = DateKeys.today();
+        // 글자 크기가 scaledDensity 를 따르므로 글꼴 배율이 바뀌면 다른 키가 되게 넣는다
+        final String key = grid.year + "-" + grid.month + "/" + todayDay + "/" + snapshot.dataVersion() + "/" + widthPx + "x" + heightPx
+            + "@" + metrics.scaledDensity;
+
+        synchronized (this) {
+            // 공휴일 달력이 바뀌면 색이 달라지므로 통째로 버린다
+            if (holidays != cachedHolidays) {
+                cache.evictAll();
+                cachedHolidays = holidays;
+            }
+            Bitmap cached = cache.get(key);
+            if (cached != null) return cached;
+
+            List<Integer> waiting = rendering.get(key);
+            if (waiting != null) {
+                if (!waiting.contains(appWidgetId)) waiting.add(appWidgetId);
+                return null;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(appWidgetId);
+            rendering.put(key, waiting);
+        }
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Bitmap bitmap = null;
+                long start = System.currentTimeMillis();
+                try {
+                    DayTopK top = DayTopK.query(snapshot, grid.firstDay, grid.lastDay(), todayDay, MAX_TASKS, holidays);
+                    bitmap = draw(grid, top, widthPx, heightPx, density, scaledDensity);
+                } catch (Exception e) {
+                    android.util.Log.e("MonthBitmap", "Render failed: " + e.getMessage(), e);
+                }
+
+                List<Integer> waiting;
+                synchronized (MonthBitmapRenderer.this) {
+                    waiting = rendering.remove(key);
+                    if (bitmap != null) cache.put(key, bitmap);
+                }
+                if (bitmap == null || waiting == null) return;
+
+                android.util.Log.d("MonthBitmap", "Rendered " + key + " in " + (System.currentTimeMillis() - start) + "ms");
+                AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
+                for (int id : waiting) {
+                    FullCalendarWidgetProvider.updateAppWidget(context, appWidgetManager, id);
+                }
+            }
+        });
+        return null;
+    }
+
+    /**
+     * 35칸을 투명 배경 비트맵 한 장에 그린다 (위젯 배경이 그대로 비친다)
+     */
+    static Bitmap draw(MonthGrid grid, DayTopK top, int width, int height, float density, float scaledDensity) {
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+
+        TextPaint dayPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        dayPaint.setTextSize(12 * scaledDensity);
+        dayPaint.setTextAlign(Paint.Align.CENTER);
+        TextPaint taskPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        taskPaint.setTextSize(10 * scaledDensity);
+        taskPaint.setColor(Color.WHITE);
+        TextPaint morePaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        morePaint.setTextSize(9 * scaledDensity);
+        morePaint.setColor(Color.parseColor("#3B82F6"));
+        Paint border = new Paint(Paint.ANTI_ALIAS_FLAG);
+        border.setStyle(Paint.Style.STROKE);
+        border.setStrokeWidth(density);
+
+        float cellWidth = width / (float) COLUMNS;
+        float cellHeight = height / (float) ROWS;
+        float padding = density;
+        float dayHeight = dayPaint.descent() - dayPaint.ascent();
+        float chipHeight = taskPaint.descent() - taskPaint.ascent() + 2 * density;
+        float chipStep = chipHeight + density;
+        float moreHeight = morePaint.descent() - morePaint.ascent();
+        RectF chip = new RectF();
+
+        for (int i = 0; i < ROWS * COLUMNS; i++) {
+            float left = (i % COLUMNS) * cellWidth + padding;
+            float right = left + cellWidth - 2 * padding;
+            float cellTop = (i / COLUMNS) * cellHeight + padding;
+            float cellBottom = cellTop + cellHeight - 2 * padding;
+
+            canvas.save();
+            canvas.clipRect(left, cellTop, right, cellBottom);
+
+            dayPaint.setColor(dayColor(grid, i));
+            canvas.drawText(grid.dayLabels[i], (left + right) / 2, cellTop - dayPaint.ascent(), dayPaint);
+
+            // 칸에 다 들어가면 전부, 아니면 "+N개" 줄 자리를 남기고 들어가는 만큼
+            int day = grid.day(i);
+            int total = top.count(day);
+            float y = cellTop + dayHeight;
+            int fitAll = (int) ((cellBottom - y + density) / chipStep);
+            int fitWithMore = (int) ((cellBottom - y - moreHeight + density) / chipStep);
+            int shown = Math.min(top.size(day), total <= fitAll ? total : Math.max(fitWithMore, 0));
+
+            for (int j = 0; j < shown; j++) {
+                chip.set(left, y, right, y + chipHeight);
+                border.setColor(borderColor(top.priority(day, j), top.isVacation(day, j)));
+                canvas.drawRoundRect(chip, 2 * density, 2 * density, border);
+                CharSequence title = TextUtils.ellipsize(top.title(day, j), taskPaint, right - left - 4 * density, TextUtils.TruncateAt.END);
+                canvas.drawText(title.toString(), left + 2 * density, y + density - taskPaint.ascent(), taskPaint);
+                y += chipStep;
+            }
+
+            if (total > shown) {
+                canvas.drawText("+" + (total - shown) + "개", left, y - morePaint.ascent(), morePaint);
+            }
+            canvas.restore();
+        }
+        return bitmap;
+    }
+
+    // 풀캘린더 그리드 모드의 날짜 색과 같은 규칙
+    private static int dayColor(MonthGrid grid, int cell) {
+        if (grid.is(cell, MonthGrid.TODAY)) return Color.parseColor("#3B82F6");
+        if (grid.is(cell, MonthGrid.OTHER_MONTH)) return Color.parseColor("#6B7280");
+        if (grid.is(cell, MonthGrid.SUNDAY | MonthGrid.HOLIDAY)) return Color.parseColor("#EF4444");
+        if (grid.is(cell, MonthGrid.SATURDAY)) return Color.parseColor("#3B82F6");
+        return Color.WHITE;
+    }
+
+    private static int borderColor(String priority, boolean isVacation) {
+        if (isVacation) return LOW;
+        if (priority == null) return MEDIUM;
+        switch (priority) {
+            case "urgent": return URGENT;
+            case "high": return HIGH;
+            case "medium": return MEDIUM;
+            case "low": return LOW;
+            case "vacation": return LOW;
+            default: return DEFAULT;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.anzpek.todolist;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 달력 그리드 모델 (불변, 일요일 시작)
+ *
+ * 달력 위젯(42칸)과 전체 달력 위젯(35칸)이 렌더링할 때마다 칸 날짜/라벨/스타일을 다시 계산하지 않도록
+ * (연, 월, 칸 수) 별로 한 번 만들어 작은 LRU 에 보관한다.
+ * 오늘 표시(TODAY)와 공휴일 표시(HOLIDAY)가 들어 있으므로 날짜나 공휴일 달력이 바뀌면 캐시를 통째로 비운다.
+ *
+ * 선택된 날짜처럼 위젯마다 다른 상태는 여기에 넣지 않는다.
+ */
+final class MonthGrid {
+
+    static final int TODAY = 1;
+    static final int OTHER_MONTH = 1 << 1;
+    static final int SUNDAY = 1 << 2;
+    static final int SATURDAY = 1 << 3;
+    static final int HOLIDAY = 1 << 4;
+
+    private static final int MAX_CACHED = 6;
+
+    // accessOrder = true: 가장 오래 안 쓴 달부터 밀려난다
+    private static final LinkedHashMap<Integer, MonthGrid> cache = new LinkedHashMap<Integer, MonthGrid>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, MonthGrid> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+    private static int cachedToday = DateKeys.NONE;
+    private static HolidayCalendar cachedHolidays;
+
+    final int year;
+    final int month; // 1-12
+    final int cellCount;
+    // 그 달 1일, 첫 칸(1일이 속한 주의 일요일) (epoch day)
+    final int monthStart;
+    final int firstDay;
+    final String title;
+    // 칸마다: 날짜 키 (yyyy-MM-dd), 일 라벨 ("16"), 스타일 플래그
+    final String[] dateKeys;
+    final String[] dayLabels;
+    final byte[] flags;
+
+    private MonthGrid(int year, int month, int cellCount, int todayDay, HolidayCalendar holidays) {
+        this.year = year;
+        this.month = month;
+        this.cellCount = cellCount;
+        this.monthStart = DateKeys.firstOfMonth(year, month);
+        this.firstDay = DateKeys.startOfWeek(monthStart);
+        this.title = DateKeys.monthTitle(monthStart);
+        this.dateKeys = new String[cellCount];
+        this.dayLabels = new String[cellCount];
+        this.flags = new byte[cellCount];
+
+        for (int i = 0; i < cellCount; i++) {
+            int day = firstDay + i;
+            int cellFlags = 0;
+            if (day == todayDay) cellFlags |= TODAY;
+            if (DateKeys.month(day) != month) cellFlags |= OTHER_MONTH;
+            // 일요일 시작이므로 요일은 칸 위치로 정해진다
+            if (i % 7 == 0) cellFlags |= SUNDAY;
+            if (i % 7 == 6) cellFlags |= SATURDAY;
+            if (holidays.isHoliday(day)) cellFlags |= HOLIDAY;
+            dateKeys[i] = DateKeys.format(day);
+            dayLabels[i] = String.valueOf(DateKeys.dayOfMonth(day));
+            flags[i] = (byte) cellFlags;
+        }
+    }
+
+    /**
+     * (연, 월) 그리드 (month 는 1-12, 범위를 넘으면 연도로 넘긴다)
+     */
+    static MonthGrid get(int year, int month, int cellCount, HolidayCalendar holidays) {
+        int monthStart = DateKeys.firstOfMonth(year, month);
+        year = DateKeys.year(monthStart);
+        month = DateKeys.month(monthStart);
+        int today = DateKeys.today();
+        Integer key = ((year * 12) + (month - 1)) * 64 + cellCount;
+
+        synchronized (cache) {
+            if (today != cachedToday || holidays != cachedHolidays) {
+                cache.clear();
+                cachedToday = today;
+                cachedHolidays = holidays;
+            }
+            MonthGrid grid = cache.get(key);
+            if (grid == null) {
+                grid = new MonthGrid(year, month, cellCount, today, holidays);
+                cache.put(key, grid);
+            }
+            return grid;
+        }
+    }
+
+    int day(int cell) { return firstDay + cell; }
+
+    int lastDay() { return firstDay + cellCount - 1; }
+
+    boolean is(int cell, int flag) { return (flags[cell] & flag) != 0; }
+}
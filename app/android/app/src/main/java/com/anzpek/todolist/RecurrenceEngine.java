@@ -0,0 +1,221 @@
+package com.anzpek.todolist;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * 반복 규칙 전개 엔진 (스냅샷마다 한 번 생성)
+ *
+ * JS 는 반복 템플릿의 규칙만 보내고, 위젯은 화면에 보이는 날짜 범위에 대해서만 발생일을 계산한다.
+ * - DAILY: 매일
+ * - WEEKLY: 매주 weekday (0=일 ~ 6=토)
+ * - MONTHLY_DATE: 매달 ordinal 일 (1-31, 그 달에 없으면 건너뜀), -1=말일, -2=첫 근무일, -3=마지막 근무일
+ * - MONTHLY_WEEKDAY: 매달 ordinal 번째 (1-4, -1=마지막) weekday
+ * 시작일/종료일(epoch day, 없으면 NONE)을 넘는 날짜는 만들지 않는다.
+ *
+ * 공휴일 처리(holidayShift): 발생일이 주말/공휴일이면 -1 이면 앞, +1 이면 뒤의 근무일로 옮긴다
+ * (JS adjustForHolidays 와 같이 최대 15일까지만 옮긴다). JS 처럼 매일/매주/매달 특정 날짜(1-31) 규칙에만 적용한다.
+ *
+ * JS 가 이미 인스턴스 할일(recurring_템플릿id_yyyy-MM-dd)을 보낸 날짜는 완료 상태를 그쪽이 갖고 있으므로 전개하지 않는다.
+ * 근무일/공휴일 판단은 HolidayCalendar (기본 공휴일 + 사용자 지정 공휴일) 를 쓴다.
+ */
+final class RecurrenceEngine {
+
+    static final byte DAILY = 1;
+    static final byte WEEKLY = 2;
+    static final byte MONTHLY_DATE = 3;
+    static final byte MONTHLY_WEEKDAY = 4;
+
+    static final int LAST_DAY = -1;
+    static final int FIRST_WORKDAY = -2;
+    static final int LAST_WORKDAY = -3;
+
+    private static final String INSTANCE_PREFIX = "recurring_";
+    private static final int[] NO_DAYS = new int[0];
+    private static final int MAX_SHIFT = 15;
+
+    private final WidgetSnapshot strings;
+    final int count;
+    final int[] idRef;
+    final int[] titleRef;
+    final int[] startDay;
+    final int[] endDay;
+    final byte[] kind;
+    final byte[] priority;
+    final byte[] weekday;
+    final byte[] ordinal;
+    final byte[] holidayShift;
+    // JS 가 보낸 반복 인스턴스 할일 id
+    private HashSet<String> materialized;
+
+    RecurrenceEngine(WidgetSnapshot strings, int count) {
+        this.strings = strings;
+        this.count = count;
+        this.idRef = new int[count];
+        this.titleRef = new int[count];
+        this.startDay = new int[count];
+        this.endDay = new int[count];
+        this.kind = new byte[count];
+        this.priority = new byte[count];
+        this.weekday = new byte[count];
+        this.ordinal = new byte[count];
+        this.holidayShift = new byte[count];
+    }
+
+    // 스냅샷 할일 중 반복 인스턴스 id 를 모아 둔다 (규칙이 있을 때만)
+    void attach(TaskTable table) {
+        HashSet<String> ids = new HashSet<>();
+        if (count > 0) {
+            for (int i = 0; i < table.count; i++) {
+                String id = table.id(i);
+                if (id.startsWith(INSTANCE_PREFIX)) ids.add(id);
+            }
+        }
+        materialized = ids;
+    }
+
+    String id(int r) { return strings.string(idRef[r]); }
+
+    String title(int r) { return strings.string(titleRef[r]); }
+
+    String priorityName(int r) { return WidgetSnapshot.priorityName(priority[r]); }
+
+    /**
+     * 규칙 종류에 실제로 적용되는 공휴일 처리 (JS 는 매달 규칙 중 monthlyDate > 0 일 때만 adjustForHolidays 를 부른다,
+     * 요일 패턴과 말일/첫 근무일/마지막 근무일은 옮기지 않는다)
+     */
+    static int holidayShift(int kind, int ordinal, int requested) {
+        switch (kind) {
+            case DAILY:
+            case WEEKLY:
+                return requested;
+            case MONTHLY_DATE:
+                return ordinal > 0 ? requested : 0;
+            default:
+                return 0;
+        }
+    }
+
+    // JS 인스턴스 할일과 같은 id 규칙
+    String instanceId(int r, int day) {
+        return INSTANCE_PREFIX + id(r) + "_" + DateKeys.format(day);
+    }
+
+    /**
+     * [fromDay, toDay] 안의 발생일 (공휴일 처리 후, 오름차순, JS 인스턴스가 있는 날짜는 제외)
+     */
+    int[] expand(int r, int fromDay, int toDay, HolidayCalendar holidays) {
+        int shift = holidayShift[r];
+        // 옮겨져서 창 안으로 들어오는 발생일까지 보도록 원래 날짜 범위를 넓힌다
+        int[] days = occurrences(r, shift > 0 ? fromDay - MAX_SHIFT : fromDay, shift < 0 ? toDay + MAX_SHIFT : toDay, holidays);
+        int size = days.length;
+        if (shift != 0) {
+            for (int k = 0; k < size; k++) days[k] = shiftOffHoliday(days[k], shift, holidays);
+            // 옮긴 날짜끼리 겹칠 수 있으므로 정렬 후 중복 제거
+            Arrays.sort(days);
+        }
+
+        int kept = 0;
+        HashSet<String> sent = materialized;
+        for (int k = 0; k < size; k++) {
+            int day = days[k];
+            if (day < fromDay || day > toDay) continue;
+            if (kept > 0 && days[kept - 1] == day) continue;
+            // JS 가 인스턴스로 보낸 날짜 제외
+            if (sent != null && !sent.isEmpty() && sent.contains(instanceId(r, day))) continue;
+            days[kept++] = day;
+        }
+        return kept == days.length ? days : Arrays.copyOf(days, kept);
+    }
+
+    // 규칙상 발생일 (시작일/종료일 범위 안, 공휴일 처리 전)
+    private int[] occurrences(int r, int fromDay, int toDay, HolidayCalendar holidays) {
+        if (startDay[r] != DateKeys.NONE) fromDay = Math.max(fromDay, startDay[r]);
+        if (endDay[r] != DateKeys.NONE) toDay = Math.min(toDay, endDay[r]);
+        if (fromDay > toDay) return NO_DAYS;
+
+        int[] days = new int[8];
+        int size = 0;
+        switch (kind[r]) {
+            case DAILY:
+                days = new int[toDay - fromDay + 1];
+                for (int day = fromDay; day <= toDay; day++) days[size++] = day;
+                break;
+            case WEEKLY: {
+                int first = fromDay + Math.floorMod(weekday[r] + 1 - DateKeys.dayOfWeek(fromDay), 7);
+                for (int day = first; day <= toDay; day += 7) {
+                    if (size == days.length) days = Arrays.copyOf(days, size * 2);
+                    days[size++] = day;
+                }
+                break;
+            }
+            case MONTHLY_DATE:
+            case MONTHLY_WEEKDAY: {
+                int year = DateKeys.year(fromDay);
+                int month = DateKeys.month(fromDay);
+                while (DateKeys.firstOfMonth(year, month) <= toDay) {
+                    int day = kind[r] == MONTHLY_DATE
+                        ? monthlyDate(year, month, ordinal[r], holidays)
+                        : monthlyWeekday(year, month, ordinal[r], weekday[r]);
+                    if (day != DateKeys.NONE && day >= fromDay && day <= toDay) {
+                        if (size == days.length) days = Arrays.copyOf(days, size * 2);
+                        days[size++] = day;
+                    }
+                    if (++month > 12) {
+                        month = 1;
+                        year++;
+                    }
+                }
+                break;
+            }
+            default:
+                return NO_DAYS;
+        }
+        return size == days.length ? days : Arrays.copyOf(days, size);
+    }
+
+    // 주말/공휴일이면 step 방향으로 근무일까지 옮긴다 (JS 와 같이 15일 안에 근무일이 없으면 원래 날짜)
+    static int shiftOffHoliday(int day, int step, HolidayCalendar holidays) {
+        if (holidays.isWorkday(day)) return day;
+        int shifted = day;
+        for (int attempts = 0; attempts < MAX_SHIFT; attempts++) {
+            shifted += step;
+            if (holidays.isWorkday(shifted)) return shifted;
+        }
+        return day;
+    }
+
+    // 매달 특정 날짜 (그 달에 없는 날짜면 NONE)
+    static int monthlyDate(int year, int month, int date, HolidayCalendar holidays) {
+        int first = DateKeys.firstOfMonth(year, month);
+        int last = DateKeys.firstOfMonth(year, month + 1) - 1;
+        switch (date) {
+            case LAST_DAY:
+                return last;
+            case FIRST_WORKDAY: {
+                int day = first;
+                while (!holidays.isWorkday(day) && day < last) day++;
+                return day;
+            }
+            case LAST_WORKDAY: {
+                int day = last;
+                while (!holidays.isWorkday(day) && day > first) day--;
+                return day;
+            }
+            default:
+                if (date <= 0) return first;
+                return first + date - 1 <= last ? first + date - 1 : DateKeys.NONE;
+        }
+    }
+
+    // 매달 n번째 요일 (n = 1-4, -1 이면 마지막), 그 달에 없으면 NONE
+    static int monthlyWeekday(int year, int month, int nth, int weekday) {
+        int first = DateKeys.firstOfMonth(year, month);
+        int last = DateKeys.firstOfMonth(year, month + 1) - 1;
+        if (nth == LAST_DAY) {
+            return last - Math.floorMod(DateKeys.dayOfWeek(last) - (weekday + 1), 7);
+        }
+        int day = first + Math.floorMod(weekday + 1 - DateKeys.dayOfWeek(first), 7) + (nth - 1) * 7;
+        return nth >= 1 && day <= last ? day : DateKeys.NONE;
+    }
+}
@@ -0,0 +1,53 @@
+package com.anzpek.todolist;
+
+import android.widget.RemoteViews;
+
+import java.util.HashMap;
+
+/**
+ * 컬렉션 위젯 팩토리의 행 RemoteViews 캐시 (행 id → 내용 버전 + 만든 RemoteViews)
+ *
+ * getItemId 는 행 키만으로 만든 안정 id 를 돌려주고, 보이는 내용은 내용 버전으로 따로 비교한다.
+ * onDataSetChanged 뒤에도 id 와 내용 버전이 같은 행은 전에 만든 RemoteViews 를 그대로 돌려준다.
+ * 한 세대 동안 다시 쓰이지 않은 행은 다음 세대에서 버린다.
+ */
+final class RowViewCache {
+
+    private static final class Entry {
+        final long version;
+        final RemoteViews views;
+
+        Entry(long version, RemoteViews views) {
+            this.version = version;
+            this.views = views;
+        }
+    }
+
+    private HashMap<Long, Entry> previous = new HashMap<>();
+    private HashMap<Long, Entry> current = new HashMap<>();
+
+    // 데이터를 다시 읽을 때마다 (onDataSetChanged)
+    synchronized void newGeneration() {
+        previous = current;
+        current = new HashMap<>();
+    }
+
+    // 같은 id, 같은 내용 버전으로 만든 행이 있으면 그것 (없으면 null)
+    synchronized RemoteViews get(long id, long version) {
+        Entry entry = current.get(id);
+        if (entry == null) {
+            entry = previous.remove(id);
+            if (entry != null) current.put(id, entry);
+        }
+        return entry != null && entry.version == version ? entry.views : null;
+    }
+
+    synchronized void put(long id, long version, RemoteViews views) {
+        current.put(id, new Entry(version, views));
+    }
+
+    synchronized void clear() {
+        previous.clear();
+        current.clear();
+    }
+}
@@ -0,0 +1,178 @@
+package com.anzpek.todolist;
+
+import java.util.Arrays;
+
+/**
+ * 할일 표시 구간 인덱스 (스냅샷마다 한 번 생성)
+ *
+ * 달력형 위젯이 "[fromDay, toDay] 에 보이는 할일" 만 O(log n + 결과 수) 로 받도록 한다.
+ * - 닫힌 구간 (시작~종료, 종료일만): 시작일 순으로 정렬하고 종료일 최대값 세그먼트 트리로 걸러낸다
+ * - 열린 구간 (시작일만): 시작일부터 오늘까지 이월되므로 끝이 오늘에 따라 바뀐다. 시작일 순 정렬만 해 둔다
+ *
+ * TaskVisibility 의 그리드 규칙으로 보이는 할일만 넣는다 (완료 할일 등은 처음부터 빠짐).
+ */
+final class TaskIntervalIndex {
+
+    private static final int[] NO_HITS = new int[0];
+
+    private final TaskVisibility visibility;
+
+    // 닫힌 구간 (시작일 순)
+    private final int[] closedTask;
+    private final int[] closedStart;
+    private final int[] closedEnd;
+    // closedEnd 최대값 세그먼트 트리 (잎은 leafBase 부터)
+    private final int[] maxEnd;
+    private final int leafBase;
+
+    // 열린 구간 (시작일 순)
+    private final int[] openTask;
+    private final int[] openStart;
+
+    private TaskIntervalIndex(TaskVisibility visibility, int[] closedTask, int[] closedStart, int[] closedEnd,
+                              int[] openTask, int[] openStart) {
+        this.visibility = visibility;
+        this.closedTask = closedTask;
+        this.closedStart = closedStart;
+        this.closedEnd = closedEnd;
+        this.openTask = openTask;
+        this.openStart = openStart;
+
+        int base = 1;
+        while (base < closedTask.length) base <<= 1;
+        this.leafBase = base;
+        this.maxEnd = new int[base * 2];
+        Arrays.fill(maxEnd, Integer.MIN_VALUE);
+        System.arraycopy(closedEnd, 0, maxEnd, base, closedEnd.length);
+        for (int node = base - 1; node >= 1; node--) {
+            maxEnd[node] = Math.max(maxEnd[node * 2], maxEnd[node * 2 + 1]);
+        }
+    }
+
+    static TaskIntervalIndex build(TaskVisibility visibility) {
+        int closedCount = 0;
+        int openCount = 0;
+        for (int i = 0; i < visibility.count; i++) {
+            if (!visibility.inGrid(i)) continue;
+            if (isOpen(visibility, i)) openCount++;
+            else closedCount++;
+        }
+
+        // (시작일 << 32 | 할일 인덱스) 로 묶어서 정렬 -> 시작일 순, 같으면 테이블 순서
+        long[] closed = new long[closedCount];
+        long[] open = new long[openCount];
+        closedCount = 0;
+        openCount = 0;
+        for (int i = 0; i < visibility.count; i++) {
+            if (!visibility.inGrid(i)) continue;
+            if (isOpen(visibility, i)) open[openCount++] = pack(visibility.spanStart[i], i);
+            else closed[closedCount++] = pack(visibility.spanStart[i], i);
+        }
+        Arrays.sort(closed, 0, closedCount);
+        Arrays.sort(open, 0, openCount);
+
+        int[] closedTask = new int[closedCount];
+        int[] closedStart = new int[closedCount];
+        int[] closedEnd = new int[closedCount];
+        for (int k = 0; k < closedCount; k++) {
+            int task = (int) closed[k];
+            closedTask[k] = task;
+            closedStart[k] = (int) (closed[k] >> 32);
+            closedEnd[k] = visibility.spanEnd[task];
+        }
+        int[] openTask = new int[openCount];
+        int[] openStart = new int[openCount];
+        for (int k = 0; k < openCount; k++) {
+            openTask[k] = (int) open[k];
+            openStart[k] = (int) (open[k] >> 32);
+        }
+        return new TaskIntervalIndex(visibility, closedTask, closedStart, closedEnd, openTask, openStart);
+    }
+
+    private static boolean isOpen(TaskVisibility visibility, int task) {
+        return (visibility.flags[task] & TaskVisibility.CARRY_OVER) != 0;
+    }
+
+    private static long pack(int day, int task) {
+        return ((long) day << 32) | (task & 0xFFFFFFFFL);
+    }
+
+    // 할일이 보이기 시작하는 날
+    int spanStart(int task) {
+        return visibility.spanStart[task];
+    }
+
+    // 할일이 보이는 마지막 날 (시작일만 있으면 오늘까지 이월)
+    int spanEnd(int task, int todayDay) {
+        return visibility.gridEnd(task, todayDay);
+    }
+
+    /**
+     * [fromDay, toDay] 와 겹치는 할일 인덱스 (테이블 순서 = 우선순위 순서로 정렬해서 반환)
+     */
+    int[] query(int fromDay, int toDay, int todayDay) {
+        if (fromDay > toDay) return NO_HITS;
+        Hits hits = new Hits();
+
+        // 닫힌 구간: 시작일 <= toDay 인 앞부분 중 종료일 >= fromDay
+        int limit = upperBound(closedStart, toDay);
+        if (limit > 0) collect(1, 0, leafBase - 1, limit - 1, fromDay, hits);
+
+        // 열린 구간: 끝(max(시작일, 오늘))이 fromDay 이상이어야 한다
+        // 오늘 >= fromDay 면 시작일 <= toDay 전부, 아니면 시작일이 창 안에 있는 것만
+        int openEnd = upperBound(openStart, toDay);
+        int openBegin = todayDay >= fromDay ? 0 : lowerBound(openStart, fromDay);
+        for (int k = openBegin; k < openEnd; k++) hits.add(openTask[k]);
+
+        if (hits.size == 0) return NO_HITS;
+        int[] result = Arrays.copyOf(hits.items, hits.size);
+        Arrays.sort(result);
+        return result;
+    }
+
+    // 세그먼트 트리에서 [0, last] 범위 중 종료일 >= fromDay 인 잎만 모은다
+    private void collect(int node, int lo, int hi, int last, int fromDay, Hits hits) {
+        if (lo > last || maxEnd[node] < fromDay) return;
+        if (lo == hi) {
+            hits.add(closedTask[lo]);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        collect(node * 2, lo, mid, last, fromDay, hits);
+        collect(node * 2 + 1, mid + 1, hi, last, fromDay, hits);
+    }
+
+    // sorted 에서 value 보다 큰 첫 위치
+    private static int upperBound(int[] sorted, int value) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] <= value) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // sorted 에서 value 이상인 첫 위치
+    private static int lowerBound(int[] sorted, int value) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < value) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static final class Hits {
+        int[] items = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == items.length) items = Arrays.copyOf(items, size * 2);
+            items[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.anzpek.todolist;
+
+import android.content.Context;
+import android.content.Intent;
+import android.widget.RemoteViews;
+
+/**
+ * 리스트 위젯 행 (휴가 줄 / 미완료 할일 / 완료된 할일 / 반복 규칙 발생일)
+ *
+ * 종류마다 레이아웃을 따로 두어서 고정된 모양(체크박스 글자, 완료 회색, 휴가 초록)은 레이아웃에 두고
+ * 행마다 바뀌는 값과 그 행에 필요한 클릭만 보낸다. host 는 같은 종류끼리만 뷰를 재사용한다.
+ */
+final class TaskRowViews {
+
+    // 오늘/달력/주간 리스트 팩토리의 getViewTypeCount
+    static final int VIEW_TYPE_COUNT = 4;
+
+    private TaskRowViews() {
+    }
+
+    // 주간/월간 그리드 칸의 할일 줄 테두리 (우선순위 색, 휴가는 low 와 같은 색)
+    static int borderDrawable(String priority, boolean isVacation) {
+        if (isVacation) return R.drawable.task_border_low;
+        if (priority == null) return R.drawable.task_border_medium;
+        switch (priority) {
+            case "urgent": return R.drawable.task_border_urgent;
+            case "high": return R.drawable.task_border_high;
+            case "medium": return R.drawable.task_border_medium;
+            case "low": return R.drawable.task_border_low;
+            case "vacation": return R.drawable.task_border_low;
+            default: return R.drawable.task_border_default;
+        }
+    }
+
+    // 휴가 줄: 제목 + 앱 열기
+    static RemoteViews vacation(Context context, String title) {
+        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_task_row_vacation);
+        views.setTextViewText(R.id.widget_vacation_title, title);
+
+        Intent openAppIntent = new Intent();
+        openAppIntent.putExtra("action", "open_app");
+        views.setOnClickFillInIntent(R.id.widget_vacation_title, openAppIntent);
+        return views;
+    }
+
+    /**
+     * 네이티브에서 펼친 반복 규칙 발생일 (WidgetStore 에 할일이 없어서 토글하지 않고 앱 열기만)
+     * @param iconColor 우선순위 색
+     */
+    static RemoteViews occurrence(Context context, String title, int iconColor) {
+        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_task_row_rule);
+        views.setTextViewText(R.id.widget_item_title, title);
+        views.setTextColor(R.id.widget_item_checkbox, iconColor);
+
+        Intent openAppIntent = new Intent();
+        openAppIntent.putExtra("action", "open_app");
+        views.setOnClickFillInIntent(R.id.widget_item_root, openAppIntent);
+        return views;
+    }
+
+    /**
+     * 할일 줄 (체크박스 클릭 → 토글, 텍스트 클릭 → 앱 열기)
+     * @param checkboxColor 미완료 할일의 체크박스 색 (우선순위)
+     */
+    static RemoteViews task(Context context, String id, String title, boolean completed, int checkboxColor) {
+        RemoteViews views = new RemoteViews(context.getPackageName(),
+            completed ? R.layout.widget_task_row_done : R.layout.widget_task_row_open);
+        views.setTextViewText(R.id.widget_item_title, title);
+        if (!completed) {
+            views.setTextColor(R.id.widget_item_checkbox, checkboxColor);
+        }
+
+        Intent toggleIntent = new Intent();
+        toggleIntent.putExtra("action", "toggle");
+        toggleIntent.putExtra("task_id", id);
+        views.setOnClickFillInIntent(R.id.widget_item_checkbox, toggleIntent);
+
+        Intent openAppIntent = new Intent();
+        openAppIntent.putExtra("action", "open_app");
+        openAppIntent.putExtra("task_id", id);
+        views.setOnClickFillInIntent(R.id.widget_item_text_area, openAppIntent);
+        return views;
+    }
+}
@@ -0,0 +1,60 @@
+package com.anzpek.todolist;
+
+/**
+ * 할일 테이블 (struct-of-arrays)
+ *
+ * 스냅샷의 할일 레코드를 한 번에 병렬 primitive 배열로 풀어 둔다.
+ * 날짜는 epoch day(int, 없으면 DateKeys.NONE), 우선순위는 byte, 완료/휴가는 비트 플래그,
+ * id/제목은 스냅샷 문자열 풀 인덱스로만 들고 있다가 화면에 그릴 때만 디코딩한다.
+ */
+final class TaskTable {
+
+    static final int FLAG_COMPLETED = 1;
+    static final int FLAG_VACATION = 1 << 1;
+
+    static final TaskTable EMPTY = new TaskTable(null, 0);
+
+    private final WidgetSnapshot strings;
+    final int count;
+    final int[] idRef;
+    final int[] titleRef;
+    final int[] startDay;
+    final int[] dueDay;
+    final int[] completedDay;
+    final byte[] priority;
+    final byte[] flags;
+
+    TaskTable(WidgetSnapshot strings, int count) {
+        this.strings = strings;
+        this.count = count;
+        this.idRef = new int[count];
+        this.titleRef = new int[count];
+        this.startDay = new int[count];
+        this.dueDay = new int[count];
+        this.completedDay = new int[count];
+        this.priority = new byte[count];
+        this.flags = new byte[count];
+    }
+
+    String id(int i) { return strings.string(idRef[i]); }
+
+    String title(int i) { return strings.string(titleRef[i]); }
+
+    String priorityName(int i) { return WidgetSnapshot.priorityName(priority[i]); }
+
+    boolean completed(int i) { return (flags[i] & FLAG_COMPLETED) != 0; }
+
+    boolean isVacation(int i) { return (flags[i] & FLAG_VACATION) != 0; }
+
+    boolean hasStart(int i) { return startDay[i] != DateKeys.NONE; }
+
+    boolean hasDue(int i) { return dueDay[i] != DateKeys.NONE; }
+
+    // id 로 찾기 (토글 등 드문 경로에서만 사용)
+    int indexOf(String id) {
+        for (int i = 0; i < count; i++) {
+            if (id(i).equals(id)) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,105 @@
+package com.anzpek.todolist;
+
+/**
+ * 할일 표시 규칙 엔진 (스냅샷마다 한 번 계산)
+ *
+ * 할일마다 표시 구간(시작일~종료일), 이월 여부, 완료일, Inbox 여부를 미리 계산해 두고
+ * 모든 위젯이 같은 규칙으로 "이 날짜에 보이는가" 를 묻는다.
+ *
+ * 리스트 (오늘/달력/주간 위젯의 할일 목록)
+ * - 완료일이 있는 완료 할일: 오늘 완료된 것만 오늘에 표시
+ * - 시작일~종료일: 그 범위
+ * - 시작일만: 시작일, 미완료면 시작일 이후 ~ 오늘까지 이월
+ * - 종료일만: 그 날짜
+ * - 날짜 없음 (Inbox): 미완료면 오늘에 표시
+ *
+ * 그리드 (달력 칸, 주간 열, 칸반 오늘)
+ * - 미완료 할일만 (휴가 할일은 완료돼도 표시), Inbox 는 표시하지 않음
+ * - 구간은 리스트와 같고 시작일만 있는 할일은 max(시작일, 오늘) 까지 이월
+ */
+final class TaskVisibility {
+
+    static final int CARRY_OVER = 1;
+    static final int INBOX = 1 << 1;
+    static final int COMPLETED = 1 << 2;
+    static final int IN_GRID = 1 << 3;
+
+    final int count;
+    // 표시 구간 (구간이 없으면 NONE), 이월 할일은 spanEnd == spanStart
+    final int[] spanStart;
+    final int[] spanEnd;
+    // 완료일 (완료되지 않았거나 완료일이 없으면 NONE)
+    final int[] completedOn;
+    final byte[] flags;
+
+    private TaskVisibility(int count) {
+        this.count = count;
+        this.spanStart = new int[count];
+        this.spanEnd = new int[count];
+        this.completedOn = new int[count];
+        this.flags = new byte[count];
+    }
+
+    static TaskVisibility build(TaskTable table) {
+        TaskVisibility v = new TaskVisibility(table.count);
+        for (int i = 0; i < table.count; i++) {
+            boolean completed = table.completed(i);
+            boolean hasStart = table.hasStart(i);
+            boolean hasDue = table.hasDue(i);
+            int start = table.startDay[i];
+            int due = table.dueDay[i];
+            int flags = completed ? COMPLETED : 0;
+
+            if (hasStart && hasDue) {
+                // 종료일이 시작일보다 앞인 잘못된 구간은 어느 날에도 보이지 않는다
+                v.spanStart[i] = due >= start ? start : DateKeys.NONE;
+                v.spanEnd[i] = due >= start ? due : DateKeys.NONE;
+            } else if (hasStart) {
+                v.spanStart[i] = start;
+                v.spanEnd[i] = start;
+                flags |= CARRY_OVER;
+            } else if (hasDue) {
+                v.spanStart[i] = due;
+                v.spanEnd[i] = due;
+            } else {
+                v.spanStart[i] = DateKeys.NONE;
+                v.spanEnd[i] = DateKeys.NONE;
+                if (!completed) flags |= INBOX;
+            }
+
+            v.completedOn[i] = completed ? table.completedDay[i] : DateKeys.NONE;
+            if (v.spanStart[i] != DateKeys.NONE && (!completed || table.isVacation(i))) flags |= IN_GRID;
+            v.flags[i] = (byte) flags;
+        }
+        return v;
+    }
+
+    boolean inGrid(int i) { return (flags[i] & IN_GRID) != 0; }
+
+    /**
+     * 할일 목록에 표시할지 (선택된 날짜 day 기준)
+     */
+    boolean visibleInList(int i, int day, int todayDay) {
+        if (completedOn[i] != DateKeys.NONE) {
+            return day == todayDay && completedOn[i] == todayDay;
+        }
+        if ((flags[i] & INBOX) != 0) return day == todayDay;
+        int start = spanStart[i];
+        if (start == DateKeys.NONE) return false;
+        if (day >= start && day <= spanEnd[i]) return true;
+        // 미완료 이월: 시작일 이후 ~ 오늘
+        return (flags[i] & (CARRY_OVER | COMPLETED)) == CARRY_OVER && day > start && day <= todayDay;
+    }
+
+    /**
+     * 그리드 칸(달력/주간/칸반)에 표시할지
+     */
+    boolean visibleInGrid(int i, int day, int todayDay) {
+        return inGrid(i) && day >= spanStart[i] && day <= gridEnd(i, todayDay);
+    }
+
+    // 그리드에서 할일이 보이는 마지막 날 (시작일만 있으면 오늘까지 이월)
+    int gridEnd(int i, int todayDay) {
+        return (flags[i] & CARRY_OVER) != 0 ? Math.max(spanStart[i], todayDay) : spanEnd[i];
+    }
+}
@@ -1,33 +1,22 @@
 package com.anzpek.todolist;
 
 import android.content.Context;
-import android.content.Intent;
 import android.content.SharedPreferences;
 import android.widget.RemoteViews;
 import android.widget.RemoteViewsService;
 import android.graphics.Color;
-import android.view.View;
 
-import android.graphics.Paint;
-import android.util.TypedValue;
-
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Locale;
 
 public class TodoListRemoteViewsFactory implements RemoteViewsService.RemoteViewsFactory {
 
     private final Context context;
     private List<ItemInfo> itemList = new ArrayList<>();
+    private final RowViewCache rowViews = new RowViewCache();
     private static final String PREFS_NAME = "WidgetPrefs";
-    private static final String PREF_PREFIX_KEY = "todo_list_";
 
     // 아이템 정보 클래스 (휴가 또는 할일)
     private static class ItemInfo {
@@ -37,16 +26,23 @@ public class TodoListRemoteViewsFactory implements RemoteViewsService.RemoteView
         boolean completed;
         boolean isVacation;
         String vacationType;
-        int progress;
+        // 네이티브에서 펼친 반복 발생일 (WidgetStore 에 없으므로 토글 불가)
+        boolean occurrence;
+        // 행 키로만 만든 안정 id (휴가 줄은 줄 번호 vac_line_N, 보이는 내용은 contentVersion 으로 따로 비교)
+        final long stableId;
         
-        ItemInfo(String id, String title, String priority, boolean completed, boolean isVacation, String vacationType, int progress) {
+        ItemInfo(String id, String title, String priority, boolean completed, boolean isVacation, String vacationType) {
             this.id = id;
             this.title = title;
             this.priority = priority;
             this.completed = completed;
             this.isVacation = isVacation;
             this.vacationType = vacationType;
-            this.progress = progress;
+            this.stableId = WidgetHash.rowId(id);
+        }
+
+        long contentVersion() {
+            return WidgetHash.rowContent(title, priority, completed, isVacation || occurrence);
         }
         
         int getSortOrder() {
@@ -76,12 +72,6 @@ public class TodoListRemoteViewsFactory implements RemoteViewsService.RemoteView
                 default: return Color.parseColor("#9CA3AF");
             }
         }
-        
-        String getCheckbox() {
-            if (isVacation) return ""; // 휴가는 체크박스 없음
-            if (completed) return "☑";
-            return "☐"; // 네모 체크박스
-        }
     }
 
     public TodoListRemoteViewsFactory(Context context) {
@@ -95,12 +85,14 @@ public class TodoListRemoteViewsFactory implements RemoteViewsService.RemoteView
 
     @Override
     public void onDataSetChanged() {
+        rowViews.newGeneration();
         loadTasks();
     }
 
     @Override
     public void onDestroy() {
         itemList.clear();
+        rowViews.clear();
     }
 
     @Override
@@ -112,59 +104,26 @@ public class TodoListRemoteViewsFactory implements RemoteViewsService.RemoteView
     public RemoteViews getViewAt(int position) {
         if (position >= itemList.size()) return null;
 
-        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_task_item);
+        // id 와 내용이 그대로인 행은 전에 만든 RemoteViews 를 다시 쓴다
         ItemInfo item = itemList.get(position);
+        long version = item.contentVersion();
+        RemoteViews views = rowViews.get(item.stableId, version);
+        if (views == null) {
+            views = buildRow(item);
+            rowViews.put(item.stableId, version, views);
+        }
+        return views;
+    }
 
+    // 종류별 레이아웃: 휴가 줄, 반복 발생일 (앱 열기만) / 미완료 / 완료 (토글 + 앱 열기)
+    private RemoteViews buildRow(ItemInfo item) {
         if (item.isVacation) {
-            // 휴가: 체크박스 숨기고 타이틀만 표시
-            views.setTextViewText(R.id.widget_item_checkbox, "");
-            views.setTextViewText(R.id.widget_item_title, item.title);
-            views.setTextColor(R.id.widget_item_title, item.getColor());
-            views.setViewVisibility(R.id.widget_item_due_date, View.GONE);
-            
-            // 휴가는 클릭 시 앱 열기만
-            Intent openAppIntent = new Intent();
-            openAppIntent.putExtra("action", "open_app");
-            views.setOnClickFillInIntent(R.id.widget_item_text_area, openAppIntent);
-        } else {
-            // 할일: 체크박스 + 제목
-            String checkbox = item.getCheckbox();
-            views.setTextViewText(R.id.widget_item_checkbox, checkbox);
-            views.setTextColor(R.id.widget_item_checkbox, item.getColor()); // 체크박스만 우선순위 색상
-            
-            views.setTextViewText(R.id.widget_item_title, item.title);
-            
-            if (item.completed) {
-                // 완료된 할일: 체크박스/텍스트 모두 회색
-                views.setTextColor(R.id.widget_item_checkbox, Color.parseColor("#6B7280"));
-                views.setTextColor(R.id.widget_item_title, Color.parseColor("#6B7280"));
-            } else {
-                // 미완료 할일: 체크박스 우선순위 색상, 텍스트 흰색
-                views.setTextColor(R.id.widget_item_title, Color.WHITE);
-            }
-            
-            // 진행률 표시
-            if (item.progress >= 0) {
-                views.setTextViewText(R.id.widget_item_due_date, "[" + item.progress + "%]");
-                views.setViewVisibility(R.id.widget_item_due_date, View.VISIBLE);
-            } else {
-                views.setViewVisibility(R.id.widget_item_due_date, View.GONE);
-            }
-            
-            // 체크박스 클릭 → 완료 토글
-            Intent toggleIntent = new Intent();
-            toggleIntent.putExtra("action", "toggle");
-            toggleIntent.putExtra("task_id", item.id);
-            views.setOnClickFillInIntent(R.id.widget_item_checkbox, toggleIntent);
-            
-            // 텍스트 클릭 → 앱 열기
-            Intent openAppIntent = new Intent();
-            openAppIntent.putExtra("action", "open_app");
-            openAppIntent.putExtra("task_id", item.id);
-            views.setOnClickFillInIntent(R.id.widget_item_text_area, openAppIntent);
+            return TaskRowViews.vacation(context, item.title);
         }
-
-        return views;
+        if (item.occurrence) {
+            return TaskRowViews.occurrence(context, item.title, item.getColor());
+        }
+        return TaskRowViews.task(context, item.id, item.title, item.completed, item.getColor());
     }
 
     @Override
@@ -174,12 +133,12 @@ public class TodoListRemoteViewsFactory implements RemoteViewsService.RemoteView
 
     @Override
     public int getViewTypeCount() {
-        return 1;
+        return TaskRowViews.VIEW_TYPE_COUNT;
     }
 
     @Override
     public long getItemId(int position) {
-        return position;
+        return position < itemList.size() ? itemList.get(position).stableId : position;
     }
 
     @Override
@@ -187,152 +146,47 @@ public class TodoListRemoteViewsFactory implements RemoteViewsService.RemoteView
         return true;
     }
 
-    /**
-     * 선택된 날짜에 할일을 표시해야 하는지 판단
-     */
-    private boolean shouldShowOnDate(JSONObject task, String targetDateKey, String todayDateKey) {
-        try {
-            boolean completed = task.optBoolean("completed", false);
-            
-            String startDateKey = extractDateKey(task.optString("startDate", ""));
-            String dueDateKey = extractDateKey(task.optString("dueDate", ""));
-            String completedAtKey = extractDateKey(task.optString("completedAt", ""));
-
-            boolean hasStart = !startDateKey.isEmpty();
-            boolean hasDue = !dueDateKey.isEmpty();
-
-            // 완료된 할일: 오늘 완료된 것만 오늘 날짜에 표시
-            if (completed && !completedAtKey.isEmpty()) {
-                return targetDateKey.equals(todayDateKey) && completedAtKey.equals(todayDateKey);
-            }
-            
-            // 미완료 할일
-            if (hasStart && hasDue) {
-                // 시작일~종료일 범위
-                return targetDateKey.compareTo(startDateKey) >= 0 && targetDateKey.compareTo(dueDateKey) <= 0;
-            }
-
-            if (hasStart && !hasDue) {
-                // 시작일만 있는 경우
-                if (targetDateKey.equals(startDateKey)) return true;
-                // 미완료이고 시작일 이후~오늘까지: 이월 표시
-                if (!completed && targetDateKey.compareTo(startDateKey) > 0 && targetDateKey.compareTo(todayDateKey) <= 0) {
-                    return true;
-                }
-                return false;
-            }
-            
-            if (!hasStart && hasDue) {
-                // 종료일만 있는 경우: 그 날짜에만 표시
-                return targetDateKey.equals(dueDateKey);
-            }
-            
-            // 날짜 없음 (Inbox): 오늘에 표시 (미완료만)
-            if (!hasStart && !hasDue && !completed) {
-                return targetDateKey.equals(todayDateKey);
-            }
-            
-            return false;
-        } catch (Exception e) {
-            return false;
-        }
-    }
-    
-    private String extractDateKey(String isoDate) {
-        if (isoDate == null || isoDate.isEmpty()) return "";
-        if (isoDate.length() >= 10) {
-            return isoDate.substring(0, 10);
-        }
-        return "";
-    }
-
     private void loadTasks() {
         itemList.clear();
         try {
             SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            String todoJson = prefs.getString(PREF_PREFIX_KEY + "data", "[]");
-            
-            JSONArray calendarTasks = new JSONArray();
-            JSONArray vacations = new JSONArray();
-            
-            if (todoJson.startsWith("{")) {
-                JSONObject combined = new JSONObject(todoJson);
-                // calendar 데이터 사용 (today가 아닌)
-                calendarTasks = combined.optJSONArray("calendar");
-                if (calendarTasks == null) calendarTasks = new JSONArray();
-                vacations = combined.optJSONArray("vacations");
-                if (vacations == null) vacations = new JSONArray();
-            } else {
-                calendarTasks = new JSONArray(todoJson);
-            }
+            WidgetSnapshot snapshot = WidgetDataRepository.get(context);
             
             // 선택된 날짜 가져오기
-            SimpleDateFormat dateKeyFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
-            String todayKey = dateKeyFormat.format(new java.util.Date());
+            int todayDay = DateKeys.today();
+            String todayKey = DateKeys.format(todayDay);
             String selectedDate = prefs.getString("today_widget_selected_date", todayKey);
             
             android.util.Log.d("TodoListFactory", "Loading tasks for date: " + selectedDate + ", todayKey: " + todayKey);
             
-            // 휴가 수집 (선택된 날짜만)
-            List<String> vacationTitles = new ArrayList<>();
-            for (int i = 0; i < vacations.length(); i++) {
-                JSONObject v = vacations.getJSONObject(i);
-                String vacDate = v.optString("date", "");
-                if (selectedDate.equals(vacDate)) {
-                    String employeeName = v.optString("employeeName", "");
-                    String type = v.optString("type", "휴가");
-                    String title = employeeName.isEmpty() ? type : employeeName + " " + type;
-                    vacationTitles.add(title);
-                }
+            // 휴가: 한 줄에 최대한 많이, 글이 잘리지 않게 (제목 너비는 VacationLinePacker 캐시, Max 320dp)
+            int selectedDay = DateKeys.parse(selectedDate);
+            List<String> vacationLines = VacationLinePacker.get().pack(context, snapshot, selectedDay, 15, 320);
+            for (int lineIndex = 0; lineIndex < vacationLines.size(); lineIndex++) {
+                itemList.add(new ItemInfo("vac_line_" + lineIndex, vacationLines.get(lineIndex), "", false, true, "휴가"));
             }
             
-            // 휴가: 한 줄에 최대한 많이, 글이 잘리지 않게 (Paint 측정, Max 320dp)
-            if (!vacationTitles.isEmpty()) {
-                Paint paint = new Paint();
-                paint.setTextSize(spToPx(15)); // 15sp
-                float maxLineWidth = dpToPx(320); // Today 위젯 너비
-                float separatorWidth = paint.measureText(" ⸰ ");
-                
-                StringBuilder line = new StringBuilder();
-                float currentLineWidth = 0;
-                int lineIndex = 0;
-                
-                for (int i = 0; i < vacationTitles.size(); i++) {
-                    String title = vacationTitles.get(i);
-                    float titleWidth = paint.measureText(title);
-                    
-                    if (line.length() == 0) {
-                        line.append(title);
-                        currentLineWidth = titleWidth;
-                    } else {
-                        if (currentLineWidth + separatorWidth + titleWidth <= maxLineWidth) {
-                            line.append(" ⸰ ").append(title);
-                            currentLineWidth += (separatorWidth + titleWidth);
-                        } else {
-                            itemList.add(new ItemInfo("vac_line_" + lineIndex, line.toString(), "", false, true, "휴가", -1));
-                            lineIndex++;
-                            line = new StringBuilder(title);
-                            currentLineWidth = titleWidth;
-                        }
-                    }
-                }
-                if (line.length() > 0) {
-                    itemList.add(new ItemInfo("vac_line_" + lineIndex, line.toString(), "", false, true, "휴가", -1));
+            // 할일 추가 (선택된 날짜에 표시해야 하는 것만 - 캘린더와 동일한 로직)
+            TaskTable tasks = snapshot.tasks();
+            TaskVisibility visibility = snapshot.visibility();
+            for (int i = 0; i < tasks.count; i++) {
+                if (visibility.visibleInList(i, selectedDay, todayDay)) {
+                    String id = tasks.id(i);
+                    String title = tasks.title(i);
+                    String priority = tasks.priorityName(i);
+                    boolean completed = tasks.completed(i);
+                    itemList.add(new ItemInfo(id, title, priority, completed, false, null));
                 }
             }
-            
-            // 할일 추가 (선택된 날짜에 표시해야 하는 것만 - 캘린더와 동일한 로직)
-            for (int i = 0; i < calendarTasks.length(); i++) {
-                JSONObject task = calendarTasks.getJSONObject(i);
-                
-                if (shouldShowOnDate(task, selectedDate, todayKey)) {
-                    String id = task.optString("id", "task_" + i);
-                    String title = task.optString("title", "");
-                    String priority = task.optString("priority", "medium");
-                    boolean completed = task.optBoolean("completed", false);
-                    int progress = -1; // calendar에는 progress 없음
-                    
-                    itemList.add(new ItemInfo(id, title, priority, completed, false, null, progress));
+
+            // 반복 규칙 발생일 (오늘 이후, JS 인스턴스가 없는 날짜만)
+            RecurrenceEngine recurrence = snapshot.recurrence();
+            for (int r = 0; r < recurrence.count; r++) {
+                if (recurrence.expand(r, Math.max(selectedDay, todayDay), selectedDay, HolidayCalendar.get(context)).length > 0) {
+                    ItemInfo item = new ItemInfo(recurrence.instanceId(r, selectedDay), recurrence.title(r),
+                        recurrence.priorityName(r), false, false, null);
+                    item.occurrence = true;
+                    itemList.add(item);
                 }
             }
             
@@ -351,12 +205,4 @@ public class TodoListRemoteViewsFactory implements RemoteViewsService.RemoteView
             e.printStackTrace();
         }
     }
-
-    private float dpToPx(float dp) {
-        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dp, context.getResources().getDisplayMetrics());
-    }
-
-    private float spToPx(float sp) {
-        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, sp, context.getResources().getDisplayMetrics());
-    }
 }
@@ -10,14 +10,7 @@ import android.content.SharedPreferences;
 import android.net.Uri;
 import android.widget.RemoteViews;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
 import java.util.HashMap;
-import java.util.Locale;
 import java.util.Map;
 
 import com.google.firebase.auth.FirebaseAuth;
@@ -28,7 +21,6 @@ import com.google.firebase.firestore.FieldValue;
 public class TodoListWidget extends AppWidgetProvider {
 
     private static final String PREFS_NAME = "WidgetPrefs";
-    private static final String PREF_PREFIX_KEY = "todo_list_";
     private static final String ACTION_PREV_DAY = "com.anzpek.todolist.PREV_DAY";
     private static final String ACTION_NEXT_DAY = "com.anzpek.todolist.NEXT_DAY";
     private static final String ACTION_TODAY = "com.anzpek.todolist.GO_TODAY";
@@ -44,47 +36,33 @@ public class TodoListWidget extends AppWidgetProvider {
         
         try {
             // 선택된 날짜 가져오기 (기본값: 오늘)
-            Calendar today = Calendar.getInstance();
-            SimpleDateFormat dateKeyFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
-            String todayKey = dateKeyFormat.format(today.getTime());
+            int todayDay = DateKeys.today();
+            String todayKey = DateKeys.format(todayDay);
             
             String selectedDateKey = prefs.getString("today_widget_selected_date", todayKey);
+            int selectedDay = DateKeys.parse(selectedDateKey);
             
             // 선택된 날짜의 표시 텍스트
             String displayText;
-            if (selectedDateKey.equals(todayKey)) {
+            if (selectedDay == todayDay) {
                 displayText = "Today";
+            } else if (selectedDay != DateKeys.NONE) {
+                displayText = DateKeys.shortLabel(selectedDay);
             } else {
-                try {
-                    Calendar selectedCal = Calendar.getInstance();
-                    String[] parts = selectedDateKey.split("-");
-                    selectedCal.set(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]) - 1, Integer.parseInt(parts[2]));
-                    SimpleDateFormat displayFormat = new SimpleDateFormat("M/d (E)", Locale.KOREAN);
-                    displayText = displayFormat.format(selectedCal.getTime());
-                } catch (Exception e) {
-                    displayText = selectedDateKey;
-                }
+                displayText = selectedDateKey;
             }
             
             views.setTextViewText(R.id.widget_title, displayText);
             
-            // 데이터 로드
-            String todoJson = prefs.getString(PREF_PREFIX_KEY + "data", "[]");
-            JSONArray calendarTasks = new JSONArray();
-            
-            if (todoJson.startsWith("{")) {
-                JSONObject combined = new JSONObject(todoJson);
-                calendarTasks = combined.optJSONArray("calendar");
-                if (calendarTasks == null) calendarTasks = new JSONArray();
-            } else {
-                calendarTasks = new JSONArray(todoJson);
-            }
+            // 데이터 로드 (바이너리 스냅샷 → 할일 테이블)
+            WidgetSnapshot snapshot = WidgetDataRepository.get(context);
+            TaskTable tasks = snapshot.tasks();
+            TaskVisibility visibility = snapshot.visibility();
             
             // 선택된 날짜에 표시할 할일만 카운트
             int taskCount = 0;
-            for (int i = 0; i < calendarTasks.length(); i++) {
-                JSONObject task = calendarTasks.getJSONObject(i);
-                if (shouldShowOnDate(task, selectedDateKey, todayKey)) {
+            for (int i = 0; i < tasks.count; i++) {
+                if (visibility.visibleInList(i, selectedDay, todayDay)) {
                     taskCount++;
                 }
             }
@@ -185,10 +163,7 @@ public class TodoListWidget extends AppWidgetProvider {
             navigateDate(context, prefs, 1);
             
         } else if (ACTION_TODAY.equals(action)) {
-            Calendar today = Calendar.getInstance();
-            SimpleDateFormat dateKeyFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
-            String todayKey = dateKeyFormat.format(today.getTime());
-            prefs.edit().putString("today_widget_selected_date", todayKey).apply();
+            prefs.edit().putString("today_widget_selected_date", DateKeys.todayKey()).apply();
             refreshWidget(context);
             
         } else if (ACTION_REFRESH.equals(action)) {
@@ -204,7 +179,7 @@ public class TodoListWidget extends AppWidgetProvider {
                 if (taskId != null && !taskId.isEmpty() && !taskId.startsWith("vac_")) {
                     android.util.Log.d("TodoListWidget", "Toggle task directly: " + taskId);
                     toggleTaskInPrefs(context, taskId);
-                    refreshWidget(context);
+                    refreshAfterIngest(context);
                     
                     // 앱에도 알림 (Firebase 동기화용)
                     Intent toggleBroadcast = new Intent("com.anzpek.todolist.TOGGLE_TODO");
@@ -231,27 +206,33 @@ public class TodoListWidget extends AppWidgetProvider {
     }
     
     private void navigateDate(Context context, SharedPreferences prefs, int days) {
-        Calendar today = Calendar.getInstance();
-        SimpleDateFormat dateKeyFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
-        String todayKey = dateKeyFormat.format(today.getTime());
+        String currentDateKey = prefs.getString("today_widget_selected_date", DateKeys.todayKey());
         
-        String currentDateKey = prefs.getString("today_widget_selected_date", todayKey);
-        
-        try {
-            Calendar cal = Calendar.getInstance();
-            String[] parts = currentDateKey.split("-");
-            cal.set(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]) - 1, Integer.parseInt(parts[2]));
-            cal.add(Calendar.DAY_OF_MONTH, days);
-            
-            String newDateKey = dateKeyFormat.format(cal.getTime());
-            prefs.edit().putString("today_widget_selected_date", newDateKey).apply();
-        } catch (Exception e) {
-            android.util.Log.e("TodoListWidget", "Date parse error: " + e.getMessage());
+        int currentDay = DateKeys.parse(currentDateKey);
+        if (currentDay != DateKeys.NONE) {
+            prefs.edit().putString("today_widget_selected_date", DateKeys.format(currentDay + days)).apply();
+        } else {
+            android.util.Log.e("TodoListWidget", "Date parse error: " + currentDateKey);
         }
         
         refreshWidget(context);
     }
     
+    // 토글은 메모리 모델에만 반영되므로 ingest 큐가 새 스냅샷을 게시한 뒤에 다시 그린다
+    private void refreshAfterIngest(final Context context) {
+        final PendingResult result = goAsync();
+        WidgetIngestQueue.get(context).submit(false, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    refreshWidget(context);
+                } finally {
+                    result.finish();
+                }
+            }
+        });
+    }
+    
     private void refreshWidget(Context context) {
         AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
         ComponentName thisWidget = new ComponentName(context, TodoListWidget.class);
@@ -270,105 +251,17 @@ public class TodoListWidget extends AppWidgetProvider {
     @Override
     public void onDisabled(Context context) {}
     
-    private static boolean shouldShowOnDate(JSONObject task, String targetDateKey, String todayDateKey) {
-        try {
-            boolean completed = task.optBoolean("completed", false);
-            
-            String startDateKey = extractDateKey(task.optString("startDate", ""));
-            String dueDateKey = extractDateKey(task.optString("dueDate", ""));
-
-            boolean hasStart = !startDateKey.isEmpty();
-            boolean hasDue = !dueDateKey.isEmpty();
-
-            if (hasStart && hasDue) {
-                return targetDateKey.compareTo(startDateKey) >= 0 && targetDateKey.compareTo(dueDateKey) <= 0;
-            }
-
-            if (hasStart && !hasDue) {
-                if (targetDateKey.equals(startDateKey)) return true;
-                if (!completed && targetDateKey.compareTo(startDateKey) > 0 && targetDateKey.compareTo(todayDateKey) <= 0) {
-                    return true;
-                }
-                return false;
-            }
-            
-            if (!hasStart && hasDue) {
-                return targetDateKey.equals(dueDateKey);
-            }
-            
-            return false;
-        } catch (Exception e) {
-            return false;
-        }
-    }
-    
-    private static String extractDateKey(String isoDate) {
-        if (isoDate == null || isoDate.isEmpty()) return "";
-        if (isoDate.length() >= 10) {
-            return isoDate.substring(0, 10);
-        }
-        return "";
-    }
     
-    // SharedPreferences에서 할일 완료 상태 토글 + Firebase 동기화
+    // 스냅샷에서 할일 완료 상태 토글 + Firebase 동기화
     private void toggleTaskInPrefs(Context context, String taskId) {
-        try {
-            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            String dataStr = prefs.getString(PREF_PREFIX_KEY + "data", "");
-            
-            if (dataStr.isEmpty()) {
-                android.util.Log.w("TodoListWidget", "No data in prefs");
-                return;
-            }
-            
-            JSONObject combinedData = new JSONObject(dataStr);
-            JSONArray calendarArray = combinedData.optJSONArray("calendar");
-            
-            if (calendarArray == null) {
-                android.util.Log.w("TodoListWidget", "No calendar data");
-                return;
-            }
-            
-            boolean found = false;
-            boolean newCompletedState = false;
-            
-            for (int i = 0; i < calendarArray.length(); i++) {
-                JSONObject todo = calendarArray.getJSONObject(i);
-                String id = todo.optString("id", "");
-                
-                if (id.equals(taskId)) {
-                    boolean currentCompleted = todo.optBoolean("completed", false);
-                    newCompletedState = !currentCompleted;
-                    todo.put("completed", newCompletedState);
-                    
-                    // completedAt 설정/제거
-                    if (newCompletedState) {
-                        todo.put("completedAt", new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US).format(new Date()));
-                    } else {
-                        todo.remove("completedAt");
-                    }
-                    
-                    calendarArray.put(i, todo);
-                    found = true;
-                    android.util.Log.d("TodoListWidget", "Toggled task " + taskId + " to completed=" + newCompletedState);
-                    break;
-                }
-            }
-            
-            if (found) {
-                // 1. SharedPreferences 업데이트 (즉시 UI 반영)
-                combinedData.put("calendar", calendarArray);
-                prefs.edit().putString(PREF_PREFIX_KEY + "data", combinedData.toString()).apply();
-                android.util.Log.d("TodoListWidget", "Saved updated data to prefs");
-                
-                // 2. Firebase Firestore 업데이트 (백그라운드 동기화)
-                syncToggleToFirestore(taskId, newCompletedState);
-            } else {
-                android.util.Log.w("TodoListWidget", "Task not found: " + taskId);
-            }
-            
-        } catch (Exception e) {
-            android.util.Log.e("TodoListWidget", "Error toggling task: " + e.getMessage());
+        Boolean newCompletedState = WidgetStore.get(context).toggleTask(taskId, DateKeys.todayKey());
+        
+        if (newCompletedState != null) {
+            android.util.Log.d("TodoListWidget", "Toggled task " + taskId + " to completed=" + newCompletedState);
+            // Firebase Firestore 업데이트 (백그라운드 동기화)
+            syncToggleToFirestore(taskId, newCompletedState);
+        } else {
+            android.util.Log.w("TodoListWidget", "Task not found: " + taskId);
         }
     }
     
@@ -1,14 +1,13 @@
 package com.anzpek.todolist;
 
-import android.appwidget.AppWidgetManager;
 import android.content.BroadcastReceiver;
-import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.SharedPreferences;
 import android.os.Build;
 
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
@@ -16,6 +15,11 @@ import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 
 import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 @CapacitorPlugin(name = "TodoListWidget")
 public class TodoListWidgetPlugin extends Plugin {
@@ -69,43 +73,260 @@ public class TodoListWidgetPlugin extends Plugin {
     }
 
     @PluginMethod
-    public void updateWidget(PluginCall call) {
-        String data = call.getString("data"); // JSON String of tasks
-        String date = call.getString("date"); // Date string
-        Integer transparency = call.getInt("transparency"); // Transparency 0-100
+    public void updateWidget(final PluginCall call) {
+        final JSArray calendar = call.getArray("calendar"); // 할일 객체 배열 (브릿지에서 한 번만 파싱됨)
+        final JSArray vacationItems = call.getArray("vacations"); // 휴가 객체 배열
+        final JSArray recurringItems = call.getArray("recurring"); // 반복 템플릿 규칙 (위젯이 보이는 범위만 전개)
+        final String data = call.getString("data"); // 예전 형식: JSON 문자열 (하위 호환)
+        final String date = call.getString("date"); // Date string
+        final Integer transparency = call.getInt("transparency"); // Transparency 0-100
 
-        if (data == null) {
-            call.reject("Must provide data");
+        if (calendar == null && data == null) {
+            call.reject("Must provide calendar or data");
             return;
         }
 
-        // Save to Shared Preferences for the Widget to read
-        Context context = getContext();
+        final Context context = getContext();
+        // 배열 파싱, 섹션 해시, 모델 교체는 ingest 큐 스레드에서 하고 끝나면 거기서 resolve
+        // (큐는 단일 스레드라 연속된 updateWidget 도 호출 순서대로 반영된다)
+        WidgetIngestQueue.get(context).execute(new Runnable() {
+            @Override
+            public void run() {
+                ingestFullUpdate(context, call, calendar, vacationItems, recurringItems, data, date, transparency);
+            }
+        });
+    }
+
+    // updateWidget 의 본체 (ingest 큐 스레드)
+    private static void ingestFullUpdate(Context context, PluginCall call, JSArray calendar, JSArray vacationItems,
+                                         JSArray recurringItems, String data, String date, Integer transparency) {
         SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        WidgetStore store = WidgetStore.get(context);
+
+        List<WidgetSnapshot.Task> tasks = new ArrayList<>();
+        List<WidgetSnapshot.Vacation> vacations = new ArrayList<>();
+        List<WidgetSnapshot.Recurring> recurring = new ArrayList<>();
+        try {
+            if (calendar != null) {
+                WidgetSnapshot.fromJsonArrays(calendar, vacationItems, tasks, vacations);
+                WidgetSnapshot.recurringFromJsonArray(recurringItems, recurring);
+            } else {
+                WidgetSnapshot.parseCombinedJson(data, tasks, vacations);
+            }
+        } catch (Exception e) {
+            call.reject("Failed to save widget data", e);
+            return;
+        }
+
+        // 섹션별 해시 비교: 저장된 해시는 기록 당시 버전에서만 유효 (그 뒤 부분 변경/토글이 있었으면 무효)
+        long calendarHash = WidgetHash.ofTasks(tasks);
+        long vacationsHash = WidgetHash.ofVacations(vacations);
+        long recurringHash = WidgetHash.ofRecurring(recurring);
+        boolean hashesValid = prefs.getLong(PREF_PREFIX_KEY + "hash_version", -1) == store.version();
+        boolean calendarChanged = !hashesValid || prefs.getLong(PREF_PREFIX_KEY + "hash_calendar", 0) != calendarHash;
+        boolean vacationsChanged = !hashesValid || prefs.getLong(PREF_PREFIX_KEY + "hash_vacations", 0) != vacationsHash;
+        boolean recurringChanged = !hashesValid || prefs.getLong(PREF_PREFIX_KEY + "hash_recurring", 0) != recurringHash;
+        boolean metaChanged = (date != null && !date.equals(prefs.getString(PREF_PREFIX_KEY + "date", null)))
+            || (transparency != null && transparency != prefs.getInt(PREF_PREFIX_KEY + "transparency", -1));
+
+        // 메모리 모델만 교체하고 바이너리 스냅샷 기록은 ingest 큐에서 (위젯은 JSON을 다시 파싱하지 않음)
+        long version = store.version();
+        if (calendarChanged || vacationsChanged || recurringChanged) {
+            version = store.replaceAll(tasks, vacations, recurring);
+            android.util.Log.d("WidgetPlugin", "📱 Staged: " + tasks.size() + " tasks, " + vacations.size() + " vacations, "
+                + recurring.size() + " recurring (v" + version + ")");
+        }
+
         SharedPreferences.Editor editor = prefs.edit();
-        editor.putString(PREF_PREFIX_KEY + "data", data);
         if (date != null) {
             editor.putString(PREF_PREFIX_KEY + "date", date);
         }
         if (transparency != null) {
             editor.putInt(PREF_PREFIX_KEY + "transparency", transparency);
         }
+        editor.putLong(PREF_PREFIX_KEY + "hash_version", version);
+        editor.putLong(PREF_PREFIX_KEY + "hash_calendar", calendarHash);
+        editor.putLong(PREF_PREFIX_KEY + "hash_vacations", vacationsHash);
+        editor.putLong(PREF_PREFIX_KEY + "hash_recurring", recurringHash);
         editor.apply();
-        
-        android.util.Log.d("WidgetPlugin", "📱 Data saved to prefs: " + data);
-        android.util.Log.d("WidgetPlugin", "📱 Transparency: " + transparency);
 
-        // Trigger Widget Update (Directly)
-        AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
-        int[] ids = appWidgetManager.getAppWidgetIds(new ComponentName(context, TodoListWidget.class));
-        
-        android.util.Log.d("WidgetPlugin", "📱 Found " + ids.length + " widget instances");
-        
-        for (int id : ids) {
-            TodoListWidget.updateAppWidget(context, appWidgetManager, id);
-            android.util.Log.d("WidgetPlugin", "📱 Updated widget ID: " + id);
+        if (calendarChanged || vacationsChanged || recurringChanged || metaChanged) {
+            android.util.Log.d("WidgetPlugin", "📱 Transparency: " + transparency);
+            WidgetIngestQueue.get(context).submit(true);
+        } else {
+            android.util.Log.d("WidgetPlugin", "📱 No visible change, skipping widget refresh");
+        }
+
+        JSObject changed = new JSObject();
+        changed.put("calendar", calendarChanged);
+        changed.put("vacations", vacationsChanged);
+        changed.put("recurring", recurringChanged);
+
+        JSObject ret = new JSObject();
+        ret.put("version", version);
+        ret.put("changed", changed);
+        call.resolve(ret);
+    }
+
+    // ===== 부분 변경 API (baseVersion 이 현재 버전과 같을 때만 적용) =====
+
+    @PluginMethod
+    public void upsertTasks(PluginCall call) {
+        Long baseVersion = call.getLong("baseVersion");
+        JSArray items = call.getArray("tasks");
+        if (baseVersion == null || items == null) {
+            call.reject("Must provide baseVersion and tasks");
+            return;
+        }
+        try {
+            List<WidgetSnapshot.Task> tasks = new ArrayList<>();
+            for (int i = 0; i < items.length(); i++) {
+                WidgetSnapshot.Task task = WidgetSnapshot.taskFromJson(items.getJSONObject(i));
+                if (task.id.isEmpty()) continue;
+                tasks.add(task);
+            }
+            finishDelta(call, WidgetStore.get(getContext()).upsertTasks(baseVersion, tasks));
+        } catch (JSONException | IOException e) {
+            call.reject("Failed to upsert tasks", e);
+        }
+    }
+
+    @PluginMethod
+    public void deleteTasks(PluginCall call) {
+        Long baseVersion = call.getLong("baseVersion");
+        JSArray ids = call.getArray("ids");
+        if (baseVersion == null || ids == null) {
+            call.reject("Must provide baseVersion and ids");
+            return;
+        }
+        try {
+            finishDelta(call, WidgetStore.get(getContext()).deleteTasks(baseVersion, toStringList(ids)));
+        } catch (JSONException | IOException e) {
+            call.reject("Failed to delete tasks", e);
+        }
+    }
+
+    @PluginMethod
+    public void upsertVacations(PluginCall call) {
+        Long baseVersion = call.getLong("baseVersion");
+        JSArray items = call.getArray("vacations");
+        if (baseVersion == null || items == null) {
+            call.reject("Must provide baseVersion and vacations");
+            return;
+        }
+        try {
+            List<WidgetSnapshot.Vacation> vacations = new ArrayList<>();
+            for (int i = 0; i < items.length(); i++) {
+                vacations.add(WidgetSnapshot.vacationFromJson(items.getJSONObject(i)));
+            }
+            finishDelta(call, WidgetStore.get(getContext()).upsertVacations(baseVersion, vacations));
+        } catch (JSONException | IOException e) {
+            call.reject("Failed to upsert vacations", e);
+        }
+    }
+
+    @PluginMethod
+    public void deleteVacations(PluginCall call) {
+        Long baseVersion = call.getLong("baseVersion");
+        JSArray ids = call.getArray("ids");
+        if (baseVersion == null || ids == null) {
+            call.reject("Must provide baseVersion and ids");
+            return;
         }
+        try {
+            finishDelta(call, WidgetStore.get(getContext()).deleteVacations(baseVersion, toStringList(ids)));
+        } catch (JSONException | IOException e) {
+            call.reject("Failed to delete vacations", e);
+        }
+    }
 
-        call.resolve();
+    @PluginMethod
+    public void getVersion(PluginCall call) {
+        JSObject ret = new JSObject();
+        ret.put("version", WidgetStore.get(getContext()).version());
+        call.resolve(ret);
+    }
+
+    // 사용자 지정 공휴일 ([{date: yyyy-MM-dd, isRecurring}]) → 달력 색상/반복 규칙 공휴일 처리에 사용
+    @PluginMethod
+    public void setCustomHolidays(PluginCall call) {
+        JSArray holidays = call.getArray("holidays");
+        StringBuilder encoded = new StringBuilder();
+        if (holidays != null) {
+            for (int i = 0; i < holidays.length(); i++) {
+                JSONObject holiday = holidays.optJSONObject(i);
+                if (holiday == null) continue;
+                String dateKey = WidgetSnapshot.extractDateKey(holiday.optString("date", ""));
+                if (dateKey.isEmpty()) continue;
+                if (encoded.length() > 0) encoded.append(',');
+                if (holiday.optBoolean("isRecurring", false)) encoded.append('*');
+                encoded.append(dateKey);
+            }
+        }
+        boolean changed = HolidayCalendar.setCustom(getContext(), encoded.toString());
+        if (changed) {
+            WidgetIngestQueue.get(getContext()).submit(true);
+        }
+
+        JSObject ret = new JSObject();
+        ret.put("changed", changed);
+        call.resolve(ret);
+    }
+
+    // 전체 달력 위젯 렌더링 모드: "grid" (기본, 칸 어댑터) / "bitmap" (한 장으로 그린 이미지)
+    @PluginMethod
+    public void setFullCalendarRenderMode(PluginCall call) {
+        String mode = "bitmap".equals(call.getString("mode", "grid")) ? "bitmap" : "grid";
+        boolean changed = FullCalendarWidgetProvider.setBitmapMode(getContext(), "bitmap".equals(mode));
+
+        JSObject ret = new JSObject();
+        ret.put("mode", mode);
+        ret.put("changed", changed);
+        call.resolve(ret);
+    }
+
+    // 디바운스 창 설정 (ms, 기본 150)
+    @PluginMethod
+    public void configureIngest(PluginCall call) {
+        Long debounceMs = call.getLong("debounceMs");
+        WidgetIngestQueue queue = WidgetIngestQueue.get(getContext());
+        if (debounceMs != null) {
+            queue.setDebounceMs(debounceMs);
+        }
+        JSObject ret = new JSObject();
+        ret.put("debounceMs", queue.debounceMs());
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void getIngestStats(PluginCall call) {
+        WidgetIngestQueue queue = WidgetIngestQueue.get(getContext());
+        JSObject ret = new JSObject();
+        ret.put("submitted", queue.submittedCount());
+        ret.put("applied", queue.appliedCount());
+        ret.put("coalesced", queue.coalescedCount());
+        ret.put("debounceMs", queue.debounceMs());
+        call.resolve(ret);
+    }
+
+    private void finishDelta(PluginCall call, long version) {
+        if (version == WidgetStore.VERSION_MISMATCH) {
+            // JS 쪽 기준 버전이 오래됨 (위젯에서 토글했거나 앱 재설치 등) → JS가 전체 updateWidget 으로 재전송
+            call.reject("Widget data version mismatch", "VERSION_MISMATCH");
+            return;
+        }
+        WidgetIngestQueue.get(getContext()).submit(true);
+
+        JSObject ret = new JSObject();
+        ret.put("version", version);
+        call.resolve(ret);
+    }
+
+    private static List<String> toStringList(JSArray array) throws JSONException {
+        List<String> list = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            list.add(array.getString(i));
+        }
+        return list;
     }
 }
@@ -0,0 +1,73 @@
+package com.anzpek.todolist;
+
+/**
+ * 날짜별 휴가 인덱스 (스냅샷마다 한 번 생성)
+ *
+ * 휴가 구간(같은 직원/유형의 연속된 날짜)을 epoch day 별로 펼쳐서
+ * "이 날짜의 휴가" 를 전체 스캔 없이 O(1) 로 찾는다.
+ * firstDay ~ lastDay 사이의 날짜마다 dayStart[d] ~ dayStart[d + 1] 가 ranges 안의 구간 번호 범위다.
+ *
+ * 사용:
+ *   for (int k = index.begin(day); k < index.end(day); k++) snapshot.vacationTitle(index.range(k));
+ */
+final class VacationIndex {
+
+    static final VacationIndex EMPTY = new VacationIndex(0, new int[1], new int[0]);
+
+    private final int firstDay;
+    private final int[] dayStart;
+    private final int[] ranges;
+
+    private VacationIndex(int firstDay, int[] dayStart, int[] ranges) {
+        this.firstDay = firstDay;
+        this.dayStart = dayStart;
+        this.ranges = ranges;
+    }
+
+    static VacationIndex build(WidgetSnapshot snapshot) {
+        int rangeCount = snapshot.vacationRangeCount();
+        int firstDay = Integer.MAX_VALUE;
+        int lastDay = Integer.MIN_VALUE;
+        for (int r = 0; r < rangeCount; r++) {
+            int start = snapshot.vacationStartDay(r);
+            if (start == DateKeys.NONE) continue;
+            firstDay = Math.min(firstDay, start);
+            lastDay = Math.max(lastDay, snapshot.vacationEndDay(r));
+        }
+        if (firstDay > lastDay) return EMPTY;
+
+        // 날짜별 개수 -> 누적 합 -> 구간 번호 채우기 (구간 순서 = 스냅샷 순서 유지)
+        int days = lastDay - firstDay + 1;
+        int[] dayStart = new int[days + 1];
+        for (int r = 0; r < rangeCount; r++) {
+            int start = snapshot.vacationStartDay(r);
+            if (start == DateKeys.NONE) continue;
+            for (int day = start; day <= snapshot.vacationEndDay(r); day++) dayStart[day - firstDay + 1]++;
+        }
+        for (int d = 0; d < days; d++) dayStart[d + 1] += dayStart[d];
+
+        int[] ranges = new int[dayStart[days]];
+        int[] fill = new int[days];
+        System.arraycopy(dayStart, 0, fill, 0, days);
+        for (int r = 0; r < rangeCount; r++) {
+            int start = snapshot.vacationStartDay(r);
+            if (start == DateKeys.NONE) continue;
+            for (int day = start; day <= snapshot.vacationEndDay(r); day++) ranges[fill[day - firstDay]++] = r;
+        }
+        return new VacationIndex(firstDay, dayStart, ranges);
+    }
+
+    // day 의 휴가가 ranges 에서 시작하는 위치 (휴가가 없으면 begin == end)
+    int begin(int day) {
+        int d = day - firstDay;
+        return d >= 0 && d < dayStart.length - 1 ? dayStart[d] : 0;
+    }
+
+    int end(int day) {
+        int d = day - firstDay;
+        return d >= 0 && d < dayStart.length - 1 ? dayStart[d + 1] : 0;
+    }
+
+    // 휴가 구간 번호 (WidgetSnapshot.vacationTitle 등에 그대로 넘긴다)
+    int range(int k) { return ranges[k]; }
+}
@@ -0,0 +1,101 @@
+package com.anzpek.todolist;
+
+import android.content.Context;
+import android.graphics.Paint;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 휴가 제목 줄 묶기 (오늘/달력/주간 리스트 공용)
+ *
+ * 한 날짜의 휴가 제목을 " ⸰ " 로 이어서 한 줄에 최대한 많이, 글이 잘리지 않게 담는다.
+ * 제목 너비는 (직원, 유형) 조합 코드마다 한 번만 측정해서 보관하고,
+ * 글자 크기(px)나 density 가 바뀌면(글꼴 배율/화면 설정 변경) 통째로 다시 잰다.
+ * 조합 코드는 스냅샷마다 다르므로 스냅샷이 바뀌어도 비운다.
+ *
+ * 팩토리들이 서로 다른 바인더 스레드에서 부를 수 있으므로 pack() 은 synchronized.
+ */
+final class VacationLinePacker {
+
+    static final String SEPARATOR = " ⸰ ";
+
+    private static final VacationLinePacker INSTANCE = new VacationLinePacker();
+
+    private final Paint paint = new Paint();
+    // 캐시 키: 스냅샷, 글자 크기(px), density
+    private WidgetSnapshot cachedSnapshot;
+    private float cachedTextSizePx = -1;
+    private float cachedDensity = -1;
+    private float separatorWidth;
+    // 조합 코드별 제목 너비 (아직 안 쟀으면 -1)
+    private float[] labelWidths = new float[0];
+
+    private VacationLinePacker() {
+    }
+
+    static VacationLinePacker get() {
+        return INSTANCE;
+    }
+
+    /**
+     * day 의 휴가 제목을 줄 단위로 묶는다 (휴가가 없으면 빈 목록)
+     * @param textSizeSp 리스트 항목 글자 크기 (sp)
+     * @param maxLineWidthDp 한 줄 최대 너비 (dp)
+     */
+    synchronized List<String> pack(Context context, WidgetSnapshot snapshot, int day, float textSizeSp, float maxLineWidthDp) {
+        VacationIndex vacations = snapshot.vacations();
+        int begin = vacations.begin(day);
+        int end = vacations.end(day);
+        List<String> lines = new ArrayList<>();
+        if (begin >= end) return lines;
+
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        float textSizePx = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, textSizeSp, metrics);
+        float maxLineWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, maxLineWidthDp, metrics);
+        if (snapshot != cachedSnapshot || textSizePx != cachedTextSizePx || metrics.density != cachedDensity) {
+            paint.setTextSize(textSizePx);
+            separatorWidth = paint.measureText(SEPARATOR);
+            labelWidths = new float[snapshot.vacationLabelCount()];
+            Arrays.fill(labelWidths, -1);
+            cachedSnapshot = snapshot;
+            cachedTextSizePx = textSizePx;
+            cachedDensity = metrics.density;
+        }
+
+        StringBuilder line = new StringBuilder();
+        float currentLineWidth = 0;
+        for (int k = begin; k < end; k++) {
+            int range = vacations.range(k);
+            String title = snapshot.vacationTitle(range);
+            float titleWidth = width(snapshot.vacationLabelCode(range), title);
+
+            if (line.length() == 0) {
+                line.append(title);
+                currentLineWidth = titleWidth;
+            } else if (currentLineWidth + separatorWidth + titleWidth <= maxLineWidth) {
+                line.append(SEPARATOR).append(title);
+                currentLineWidth += separatorWidth + titleWidth;
+            } else {
+                lines.add(line.toString());
+                line.setLength(0);
+                line.append(title);
+                currentLineWidth = titleWidth;
+            }
+        }
+        if (line.length() > 0) lines.add(line.toString());
+        return lines;
+    }
+
+    private float width(int labelCode, String title) {
+        float width = labelWidths[labelCode];
+        if (width < 0) {
+            width = paint.measureText(title);
+            labelWidths[labelCode] = width;
+        }
+        return width;
+    }
+}
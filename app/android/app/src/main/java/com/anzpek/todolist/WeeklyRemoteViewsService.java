@@ -8,23 +8,18 @@ import android.view.View;
 import android.widget.RemoteViews;
 import android.widget.RemoteViewsService;
 
-import android.graphics.Paint;
-import android.util.TypedValue;
-
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Locale;
 
 public class WeeklyRemoteViewsService extends RemoteViewsService {
     @Override
     public RemoteViewsFactory onGetViewFactory(Intent intent) {
+        // 위쪽 날짜 열 그리드와 아래 선택일 할일 목록
+        if (intent.getBooleanExtra(WeeklyGridFactory.EXTRA_GRID, false)) {
+            return new WeeklyGridFactory(this.getApplicationContext());
+        }
         return new WeeklyRemoteViewsFactory(this.getApplicationContext(), intent);
     }
 }
@@ -32,9 +27,9 @@ public class WeeklyRemoteViewsService extends RemoteViewsService {
 class WeeklyRemoteViewsFactory implements RemoteViewsService.RemoteViewsFactory {
     private Context context;
     private List<ItemInfo> itemList = new ArrayList<>();
+    private final RowViewCache rowViews = new RowViewCache();
     
     private static final String PREFS_NAME = "WidgetPrefs";
-    private static final String PREF_PREFIX_KEY = "todo_list_";
 
     // 아이템 정보 클래스 (휴가 또는 할일) - 오늘 위젯과 동일
     private static class ItemInfo {
@@ -44,6 +39,10 @@ class WeeklyRemoteViewsFactory implements RemoteViewsService.RemoteViewsFactory
         boolean completed;
         boolean isVacation;
         String vacationType;
+        // 네이티브에서 펼친 반복 발생일 (WidgetStore 에 없으므로 토글 불가)
+        boolean occurrence;
+        // 행 키로만 만든 안정 id (휴가 줄은 줄 번호 vac_line_N, 보이는 내용은 contentVersion 으로 따로 비교)
+        final long stableId;
         
         ItemInfo(String id, String title, String priority, boolean completed, boolean isVacation, String vacationType) {
             this.id = id;
@@ -52,6 +51,11 @@ class WeeklyRemoteViewsFactory implements RemoteViewsService.RemoteViewsFactory
             this.completed = completed;
             this.isVacation = isVacation;
             this.vacationType = vacationType;
+            this.stableId = WidgetHash.rowId(id);
+        }
+
+        long contentVersion() {
+            return WidgetHash.rowContent(title, priority, completed, isVacation || occurrence);
         }
         
         int getSortOrder() {
@@ -79,12 +83,6 @@ class WeeklyRemoteViewsFactory implements RemoteViewsService.RemoteViewsFactory
                 default: return Color.parseColor("#9CA3AF");
             }
         }
-        
-        String getCheckbox() {
-            if (isVacation) return "";
-            if (completed) return "☑";
-            return "☐";
-        }
     }
 
     public WeeklyRemoteViewsFactory(Context context, Intent intent) {
@@ -98,6 +96,7 @@ class WeeklyRemoteViewsFactory implements RemoteViewsService.RemoteViewsFactory
 
     @Override
     public void onDataSetChanged() {
+        rowViews.newGeneration();
         loadTasks();
     }
 
@@ -106,156 +105,61 @@ class WeeklyRemoteViewsFactory implements RemoteViewsService.RemoteViewsFactory
         
         try {
             SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            String dataStr = prefs.getString(PREF_PREFIX_KEY + "data", "");
             String selectedDateKey = prefs.getString("weekly_widget_selected_date", null);
             
-            SimpleDateFormat dateKeyFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
-            Calendar today = Calendar.getInstance();
-            String todayKey = dateKeyFormat.format(today.getTime());
+            int todayDay = DateKeys.today();
+            String todayKey = DateKeys.format(todayDay);
             
             if (selectedDateKey == null || selectedDateKey.isEmpty()) {
                 selectedDateKey = todayKey;
             }
             
-            if (dataStr != null && !dataStr.isEmpty() && dataStr.startsWith("{")) {
-                JSONObject combinedData = new JSONObject(dataStr);
-                
-                // 휴가 처리 (오늘 위젯과 동일하게 그룹화)
-                List<String> vacationTitles = new ArrayList<>();
-                JSONArray vacationsArray = combinedData.optJSONArray("vacations");
-                if (vacationsArray != null) {
-                    for (int i = 0; i < vacationsArray.length(); i++) {
-                        JSONObject vacation = vacationsArray.getJSONObject(i);
-                        String vacDate = vacation.optString("date", "");
-                        if (selectedDateKey.equals(vacDate)) {
-                            String employeeName = vacation.optString("employeeName", "");
-                            String type = vacation.optString("type", "휴가");
-                            String title = employeeName.isEmpty() ? type : employeeName + " " + type;
-                            vacationTitles.add(title);
-                        }
-                    }
-                }
-                
-                // 휴가: 한 줄에 최대한 많이, 글이 잘리지 않게 (Paint 측정, Max 200dp)
-                if (!vacationTitles.isEmpty()) {
-                    Paint paint = new Paint();
-                    paint.setTextSize(spToPx(15)); // 15sp
-                    float maxLineWidth = dpToPx(320); // Weekly 위젯 너비 (넓게 설정)
-                    float separatorWidth = paint.measureText(" ⸰ ");
-                    
-                    StringBuilder line = new StringBuilder();
-                    float currentLineWidth = 0;
-                    int lineIndex = 0;
-                    
-                    for (int i = 0; i < vacationTitles.size(); i++) {
-                        String title = vacationTitles.get(i);
-                        float titleWidth = paint.measureText(title);
-                        
-                        if (line.length() == 0) {
-                            line.append(title);
-                            currentLineWidth = titleWidth;
-                        } else {
-                            if (currentLineWidth + separatorWidth + titleWidth <= maxLineWidth) {
-                                line.append(" ⸰ ").append(title);
-                                currentLineWidth += (separatorWidth + titleWidth);
-                            } else {
-                                itemList.add(new ItemInfo("vac_line_" + lineIndex, line.toString(), "", false, true, "휴가"));
-                                lineIndex++;
-                                line = new StringBuilder(title);
-                                currentLineWidth = titleWidth;
-                            }
-                        }
-                    }
-                    if (line.length() > 0) {
-                        itemList.add(new ItemInfo("vac_line_" + lineIndex, line.toString(), "", false, true, "휴가"));
-                    }
-                }
-                
-                // 할일 처리
-                JSONArray calendarArray = combinedData.optJSONArray("calendar");
-                if (calendarArray != null) {
-                    for (int i = 0; i < calendarArray.length(); i++) {
-                        JSONObject todo = calendarArray.getJSONObject(i);
-                        boolean completed = todo.optBoolean("completed", false);
-                        boolean isVacation = todo.optBoolean("isVacation", false);
-                        
-                        if (shouldShowOnDate(todo, selectedDateKey, todayKey)) {
-                            String id = todo.optString("id", "task_" + i);
-                            String title = todo.optString("title", "");
-                            String priority = todo.optString("priority", "medium");
-                            itemList.add(new ItemInfo(id, title, priority, completed, isVacation, null));
-                        }
-                    }
-                }
-                
-                // 정렬: 휴가 → 미완료(우선순위) → 완료
-                Collections.sort(itemList, new Comparator<ItemInfo>() {
-                    @Override
-                    public int compare(ItemInfo a, ItemInfo b) {
-                        return a.getSortOrder() - b.getSortOrder();
-                    }
-                });
-            }
-        } catch (Exception e) {
-            android.util.Log.e("WeeklyFactory", "Error loading tasks: " + e.getMessage());
-        }
-    }
-    
-    private boolean shouldShowOnDate(JSONObject todo, String targetDateKey, String todayKey) {
-        try {
-            String startDate = todo.optString("startDate", "");
-            String dueDate = todo.optString("dueDate", "");
-            boolean completed = todo.optBoolean("completed", false);
-            String completedAt = todo.optString("completedAt", "");
-            
-            String startDateKey = (startDate != null && startDate.length() >= 10) ? startDate.substring(0, 10) : "";
-            String dueDateKey = (dueDate != null && dueDate.length() >= 10) ? dueDate.substring(0, 10) : "";
-            String completedAtKey = (completedAt != null && completedAt.length() >= 10) ? completedAt.substring(0, 10) : "";
-            
-            boolean hasStart = !startDateKey.isEmpty();
-            boolean hasDue = !dueDateKey.isEmpty();
+            WidgetSnapshot snapshot = WidgetDataRepository.get(context);
             
-            // 완료된 할일: 오늘 완료된 것만 오늘 날짜에 표시
-            if (completed && !completedAtKey.isEmpty()) {
-                return targetDateKey.equals(todayKey) && completedAtKey.equals(todayKey);
+            // 휴가: 한 줄에 최대한 많이, 글이 잘리지 않게 (제목 너비는 VacationLinePacker 캐시, Max 320dp)
+            int selectedDay = DateKeys.parse(selectedDateKey);
+            List<String> vacationLines = VacationLinePacker.get().pack(context, snapshot, selectedDay, 15, 320);
+            for (int lineIndex = 0; lineIndex < vacationLines.size(); lineIndex++) {
+                itemList.add(new ItemInfo("vac_line_" + lineIndex, vacationLines.get(lineIndex), "", false, true, "휴가"));
             }
             
-            if (hasStart && hasDue) {
-                return targetDateKey.compareTo(startDateKey) >= 0 && targetDateKey.compareTo(dueDateKey) <= 0;
-            }
-            if (hasStart && !hasDue) {
-                if (targetDateKey.equals(startDateKey)) return true;
-                if (!completed && targetDateKey.compareTo(startDateKey) > 0 && targetDateKey.compareTo(todayKey) <= 0) {
-                    return true;
+            // 할일 처리
+            TaskTable tasks = snapshot.tasks();
+            TaskVisibility visibility = snapshot.visibility();
+            for (int i = 0; i < tasks.count; i++) {
+                if (visibility.visibleInList(i, selectedDay, todayDay)) {
+                    itemList.add(new ItemInfo(tasks.id(i), tasks.title(i), tasks.priorityName(i),
+                        tasks.completed(i), tasks.isVacation(i), null));
                 }
-                return false;
-            }
-            if (!hasStart && hasDue) {
-                return targetDateKey.equals(dueDateKey);
             }
-            
-            // Inbox 할일 (날짜 없는 것): 미완료만 오늘에 표시
-            if (!hasStart && !hasDue && !completed) {
-                return targetDateKey.equals(todayKey);
+
+            // 반복 규칙 발생일 (오늘 이후, JS 인스턴스가 없는 날짜만)
+            RecurrenceEngine recurrence = snapshot.recurrence();
+            for (int r = 0; r < recurrence.count; r++) {
+                if (recurrence.expand(r, Math.max(selectedDay, todayDay), selectedDay, HolidayCalendar.get(context)).length > 0) {
+                    ItemInfo item = new ItemInfo(recurrence.instanceId(r, selectedDay), recurrence.title(r),
+                        recurrence.priorityName(r), false, false, null);
+                    item.occurrence = true;
+                    itemList.add(item);
+                }
             }
             
-            return false;
+            // 정렬: 휴가 → 미완료(우선순위) → 완료
+            Collections.sort(itemList, new Comparator<ItemInfo>() {
+                @Override
+                public int compare(ItemInfo a, ItemInfo b) {
+                    return a.getSortOrder() - b.getSortOrder();
+                }
+            });
         } catch (Exception e) {
-            return false;
+            android.util.Log.e("WeeklyFactory", "Error loading tasks: " + e.getMessage());
         }
     }
-
-    private float dpToPx(float dp) {
-        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dp, context.getResources().getDisplayMetrics());
-    }
-
-    private float spToPx(float sp) {
-        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, sp, context.getResources().getDisplayMetrics());
-    }
-
+    
     @Override
     public void onDestroy() {
         itemList.clear();
+        rowViews.clear();
     }
 
     @Override
@@ -268,52 +172,148 @@ class WeeklyRemoteViewsFactory implements RemoteViewsService.RemoteViewsFactory
         if (position >= itemList.size()) {
             return null;
         }
-        
+
+        // id 와 내용이 그대로인 행은 전에 만든 RemoteViews 를 다시 쓴다
         ItemInfo item = itemList.get(position);
-        // 오늘 위젯과 동일한 레이아웃 사용
-        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_task_item);
-        
-        if (item.isVacation) {
-            // 휴가: 체크박스 숨기고 타이틀만 표시
-            views.setTextViewText(R.id.widget_item_checkbox, "");
-            views.setTextViewText(R.id.widget_item_title, item.title);
-            views.setTextColor(R.id.widget_item_title, item.getColor());
-            views.setViewVisibility(R.id.widget_item_due_date, View.GONE);
-            
-            Intent openAppIntent = new Intent();
-            openAppIntent.putExtra("action", "open_app");
-            views.setOnClickFillInIntent(R.id.widget_item_text_area, openAppIntent);
-        } else {
-            // 할일: 체크박스 + 제목
-            String checkbox = item.getCheckbox();
-            views.setTextViewText(R.id.widget_item_checkbox, checkbox);
-            views.setTextColor(R.id.widget_item_checkbox, item.getColor());
-            
-            views.setTextViewText(R.id.widget_item_title, item.title);
-            
-            if (item.completed) {
-                views.setTextColor(R.id.widget_item_checkbox, Color.parseColor("#6B7280"));
-                views.setTextColor(R.id.widget_item_title, Color.parseColor("#6B7280"));
-            } else {
-                views.setTextColor(R.id.widget_item_title, Color.WHITE);
-            }
-            
-            views.setViewVisibility(R.id.widget_item_due_date, View.GONE);
-            
-            Intent toggleIntent = new Intent();
-            toggleIntent.putExtra("action", "toggle");
-            toggleIntent.putExtra("task_id", item.id);
-            views.setOnClickFillInIntent(R.id.widget_item_checkbox, toggleIntent);
-            
-            Intent openAppIntent = new Intent();
-            openAppIntent.putExtra("action", "open_app");
-            openAppIntent.putExtra("task_id", item.id);
-            views.setOnClickFillInIntent(R.id.widget_item_text_area, openAppIntent);
+        long version = item.contentVersion();
+        RemoteViews views = rowViews.get(item.stableId, version);
+        if (views == null) {
+            views = buildRow(item);
+            rowViews.put(item.stableId, version, views);
         }
-        
         return views;
     }
 
+    // 종류별 레이아웃: 휴가 줄, 반복 발생일 (앱 열기만) / 미완료 / 완료 (토글 + 앱 열기)
+    private RemoteViews buildRow(ItemInfo item) {
+        if (item.isVacation) {
+            return TaskRowViews.vacation(context, item.title);
+        }
+        if (item.occurrence) {
+            return TaskRowViews.occurrence(context, item.title, item.getColor());
+        }
+        return TaskRowViews.task(context, item.id, item.title, item.completed, item.getColor());
+    }
+
+    @Override
+    public RemoteViews getLoadingView() {
+        return null;
+    }
+
+    @Override
+    public int getViewTypeCount() {
+        return TaskRowViews.VIEW_TYPE_COUNT;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position < itemList.size() ? itemList.get(position).stableId : position;
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return true;
+    }
+}
+
+/**
+ * 주간 위젯 7개 날짜 열 그리드 어댑터 (위젯마다 하나)
+ * - 열마다 앞 MAX_TASKS_PER_COLUMN개 할일 + "+N"
+ * - 할일 줄은 채워진 만큼만 addView, 열 클릭은 fill-in 인텐트로 날짜 선택
+ */
+class WeeklyGridFactory implements RemoteViewsService.RemoteViewsFactory {
+    static final String EXTRA_GRID = "weekly_grid";
+
+    private static final String PREFS_NAME = "WidgetPrefs";
+    private static final int MAX_TASKS_PER_COLUMN = 12;
+
+    private final Context context;
+    private int weekStartDay;
+    private DayTopK top;
+    private final RowViewCache columnViews = new RowViewCache();
+
+    public WeeklyGridFactory(Context context) {
+        this.context = context;
+    }
+
+    @Override
+    public void onCreate() {
+        loadColumns();
+    }
+
+    @Override
+    public void onDataSetChanged() {
+        columnViews.newGeneration();
+        loadColumns();
+    }
+
+    private void loadColumns() {
+        try {
+            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            int todayDay = DateKeys.today();
+            weekStartDay = WeeklyWidgetProvider.storedWeekStart(prefs, todayDay);
+
+            // 휴가 포함, 열마다 앞 MAX_TASKS_PER_COLUMN개 + 전체 개수만 계산
+            WidgetSnapshot snapshot = WidgetDataRepository.get(context);
+            top = DayTopK.query(snapshot, weekStartDay, weekStartDay + 6, todayDay, MAX_TASKS_PER_COLUMN, HolidayCalendar.get(context));
+        } catch (Exception e) {
+            android.util.Log.e("WeeklyGridFactory", "Error loading columns: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void onDestroy() {
+        top = null;
+        columnViews.clear();
+    }
+
+    @Override
+    public int getCount() {
+        return top != null ? 7 : 0;
+    }
+
+    @Override
+    public RemoteViews getViewAt(int position) {
+        if (top == null || position >= 7) {
+            return null;
+        }
+
+        // 날짜와 열 내용이 그대로인 열은 전에 만든 RemoteViews 를 다시 쓴다
+        int day = weekStartDay + position;
+        long version = columnVersion(day);
+        RemoteViews column = columnViews.get(day, version);
+        if (column == null) {
+            column = buildColumn(day);
+            columnViews.put(day, version, column);
+        }
+        return column;
+    }
+
+    private RemoteViews buildColumn(int day) {
+        RemoteViews column = new RemoteViews(context.getPackageName(), R.layout.widget_weekly_col);
+
+        int shown = top.size(day);
+        for (int j = 0; j < shown; j++) {
+            RemoteViews line = new RemoteViews(context.getPackageName(), R.layout.widget_weekly_task_item);
+            line.setTextViewText(R.id.weekly_task_text, top.title(day, j));
+            line.setInt(R.id.weekly_task_text, "setBackgroundResource", TaskRowViews.borderDrawable(top.priority(day, j), top.isVacation(day, j)));
+            column.addView(R.id.col_tasks, line);
+        }
+
+        int total = top.count(day);
+        if (total > shown) {
+            column.setTextViewText(R.id.col_more, "+" + (total - shown));
+            column.setViewVisibility(R.id.col_more, View.VISIBLE);
+        }
+
+        // 열 전체 클릭 → 날짜 선택
+        Intent selectDayIntent = new Intent();
+        selectDayIntent.putExtra("selected_date", DateKeys.format(day));
+        column.setOnClickFillInIntent(R.id.col_root, selectDayIntent);
+
+        return column;
+    }
+
     @Override
     public RemoteViews getLoadingView() {
         return null;
@@ -324,9 +324,20 @@ class WeeklyRemoteViewsFactory implements RemoteViewsService.RemoteViewsFactory
         return 1;
     }
 
+    // 안정 id: 열의 날짜 (내용은 columnVersion 으로 따로 비교)
     @Override
     public long getItemId(int position) {
-        return position;
+        if (top == null || position >= 7) return position;
+        return weekStartDay + position;
+    }
+
+    // 열 내용 버전: 할일 개수 + 보이는 할일
+    private long columnVersion(int day) {
+        WidgetHash hash = new WidgetHash().add(day).add(top.count(day));
+        for (int j = 0; j < top.size(day); j++) {
+            hash.add(top.title(day, j)).add(top.priority(day, j)).add(top.isVacation(day, j));
+        }
+        return hash.value();
     }
 
     @Override
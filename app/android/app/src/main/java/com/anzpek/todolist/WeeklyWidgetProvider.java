@@ -11,15 +11,7 @@ import android.graphics.Color;
 import android.net.Uri;
 import android.widget.RemoteViews;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.HashMap;
-import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 
 import com.google.firebase.auth.FirebaseAuth;
@@ -30,218 +22,92 @@ import com.google.firebase.firestore.FieldValue;
 public class WeeklyWidgetProvider extends AppWidgetProvider {
 
     private static final String PREFS_NAME = "WidgetPrefs";
-    private static final String PREF_PREFIX_KEY = "todo_list_";
     private static final String ACTION_PREV_WEEK = "com.anzpek.todolist.WEEKLY_PREV";
     private static final String ACTION_NEXT_WEEK = "com.anzpek.todolist.WEEKLY_NEXT";
     private static final String ACTION_GO_TODAY = "com.anzpek.todolist.WEEKLY_TODAY";
     private static final String ACTION_SELECT_DAY = "com.anzpek.todolist.WEEKLY_SELECT_DAY";
     private static final String ACTION_REFRESH = "com.anzpek.todolist.WEEKLY_REFRESH";
     
-    private static final int MAX_TASKS_PER_COLUMN = 12;
-    
     private static final int[] DAY_IDS = {
         R.id.day_0, R.id.day_1, R.id.day_2, R.id.day_3, R.id.day_4, R.id.day_5, R.id.day_6
     };
     
-    // 열 클릭용 ID (날짜 헤더 + 태스크 열 전체)
+    // 날짜 헤더 클릭용 ID (할일 열은 그리드 어댑터의 fill-in 인텐트)
     private static final int[] DAY_COL_IDS = {
         R.id.day_col_0, R.id.day_col_1, R.id.day_col_2, R.id.day_col_3, R.id.day_col_4, R.id.day_col_5, R.id.day_col_6
     };
     
-    private static final int[] COL_IDS = {
-        R.id.col_0, R.id.col_1, R.id.col_2, R.id.col_3, R.id.col_4, R.id.col_5, R.id.col_6
-    };
-    
-    // 각 날짜별 할일 12개 + more (13개)
-    private static final int[][] TASK_IDS = {
-        {R.id.task_0_0, R.id.task_0_1, R.id.task_0_2, R.id.task_0_3, R.id.task_0_4, R.id.task_0_5, R.id.task_0_6, R.id.task_0_7, R.id.task_0_8, R.id.task_0_9, R.id.task_0_10, R.id.task_0_11, R.id.task_0_more},
-        {R.id.task_1_0, R.id.task_1_1, R.id.task_1_2, R.id.task_1_3, R.id.task_1_4, R.id.task_1_5, R.id.task_1_6, R.id.task_1_7, R.id.task_1_8, R.id.task_1_9, R.id.task_1_10, R.id.task_1_11, R.id.task_1_more},
-        {R.id.task_2_0, R.id.task_2_1, R.id.task_2_2, R.id.task_2_3, R.id.task_2_4, R.id.task_2_5, R.id.task_2_6, R.id.task_2_7, R.id.task_2_8, R.id.task_2_9, R.id.task_2_10, R.id.task_2_11, R.id.task_2_more},
-        {R.id.task_3_0, R.id.task_3_1, R.id.task_3_2, R.id.task_3_3, R.id.task_3_4, R.id.task_3_5, R.id.task_3_6, R.id.task_3_7, R.id.task_3_8, R.id.task_3_9, R.id.task_3_10, R.id.task_3_11, R.id.task_3_more},
-        {R.id.task_4_0, R.id.task_4_1, R.id.task_4_2, R.id.task_4_3, R.id.task_4_4, R.id.task_4_5, R.id.task_4_6, R.id.task_4_7, R.id.task_4_8, R.id.task_4_9, R.id.task_4_10, R.id.task_4_11, R.id.task_4_more},
-        {R.id.task_5_0, R.id.task_5_1, R.id.task_5_2, R.id.task_5_3, R.id.task_5_4, R.id.task_5_5, R.id.task_5_6, R.id.task_5_7, R.id.task_5_8, R.id.task_5_9, R.id.task_5_10, R.id.task_5_11, R.id.task_5_more},
-        {R.id.task_6_0, R.id.task_6_1, R.id.task_6_2, R.id.task_6_3, R.id.task_6_4, R.id.task_6_5, R.id.task_6_6, R.id.task_6_7, R.id.task_6_8, R.id.task_6_9, R.id.task_6_10, R.id.task_6_11, R.id.task_6_more}
-    };
-
     @Override
     public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
+        // 시스템이 요청한 갱신은 전체로
+        WidgetViews.forget(appWidgetIds);
         for (int appWidgetId : appWidgetIds) {
             updateAppWidget(context, appWidgetManager, appWidgetId);
         }
     }
 
+    @Override
+    public void onDeleted(Context context, int[] appWidgetIds) {
+        WidgetViews.forget(appWidgetIds);
+    }
+
     public static void updateAppWidget(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
-        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_weekly_layout);
+        // 바뀐 칸만 보낸다
+        WidgetViews views = new WidgetViews(context, R.layout.widget_weekly_layout);
         
         try {
             SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            SimpleDateFormat dateKeyFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
             
-            Calendar today = Calendar.getInstance();
-            String todayKey = dateKeyFormat.format(today.getTime());
+            int todayDay = DateKeys.today();
+            String todayKey = DateKeys.format(todayDay);
             
-            String storedWeekStart = prefs.getString("weekly_widget_week_start", null);
-            Calendar weekStart = Calendar.getInstance();
-            if (storedWeekStart != null) {
-                try {
-                    weekStart.setTime(dateKeyFormat.parse(storedWeekStart));
-                } catch (Exception e) {
-                    weekStart = getWeekStart(today);
-                }
-            } else {
-                weekStart = getWeekStart(today);
-            }
+            int weekStartDay = storedWeekStart(prefs, todayDay);
             
             String selectedDateKey = prefs.getString("weekly_widget_selected_date", todayKey);
+            int selectedDay = DateKeys.parse(selectedDateKey);
             
-            SimpleDateFormat monthFormat = new SimpleDateFormat("yyyy년 M월 W주", Locale.KOREAN);
-            views.setTextViewText(R.id.widget_weekly_title, monthFormat.format(weekStart.getTime()));
+            views.setTextViewText(R.id.widget_weekly_title, DateKeys.weekTitle(weekStartDay));
             
             // 네비게이션
             Intent prevIntent = new Intent(context, WeeklyWidgetProvider.class);
             prevIntent.setAction(ACTION_PREV_WEEK);
-            PendingIntent prevPendingIntent = PendingIntent.getBroadcast(context, 3000, prevIntent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
-            views.setOnClickPendingIntent(R.id.btn_prev_week, prevPendingIntent);
+            views.setOnClickBroadcast(R.id.btn_prev_week, 3000, prevIntent);
             
             Intent nextIntent = new Intent(context, WeeklyWidgetProvider.class);
             nextIntent.setAction(ACTION_NEXT_WEEK);
-            PendingIntent nextPendingIntent = PendingIntent.getBroadcast(context, 3001, nextIntent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
-            views.setOnClickPendingIntent(R.id.btn_next_week, nextPendingIntent);
+            views.setOnClickBroadcast(R.id.btn_next_week, 3001, nextIntent);
             
             Intent goTodayIntent = new Intent(context, WeeklyWidgetProvider.class);
             goTodayIntent.setAction(ACTION_GO_TODAY);
-            PendingIntent goTodayPendingIntent = PendingIntent.getBroadcast(context, 3002, goTodayIntent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
-            views.setOnClickPendingIntent(R.id.widget_weekly_title, goTodayPendingIntent);
+            views.setOnClickBroadcast(R.id.widget_weekly_title, 3002, goTodayIntent);
             
             Intent addIntent = new Intent(context, MainActivity.class);
             addIntent.setAction(Intent.ACTION_VIEW);
-            addIntent.setData(Uri.parse("todolist://add?t=" + System.currentTimeMillis()));
+            addIntent.setData(Uri.parse("todolist://add"));
             addIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_SINGLE_TOP);
-            PendingIntent addPendingIntent = PendingIntent.getActivity(context, 3003, addIntent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
-            views.setOnClickPendingIntent(R.id.btn_add_todo, addPendingIntent);
+            views.setOnClickActivity(R.id.btn_add_todo, 3003, addIntent);
             
             Intent refreshIntent = new Intent(context, WeeklyWidgetProvider.class);
             refreshIntent.setAction(ACTION_REFRESH);
-            PendingIntent refreshPendingIntent = PendingIntent.getBroadcast(context, 3004, refreshIntent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
-            views.setOnClickPendingIntent(R.id.btn_refresh, refreshPendingIntent);
+            views.setOnClickBroadcast(R.id.btn_refresh, 3004, refreshIntent);
             
-            // 데이터 로드 (휴가 포함)
-            String dataStr = prefs.getString(PREF_PREFIX_KEY + "data", "");
-            Map<String, List<TaskInfo>> tasksByDate = new HashMap<>();
-            
-            if (dataStr != null && !dataStr.isEmpty() && dataStr.startsWith("{")) {
-                try {
-                    JSONObject combinedData = new JSONObject(dataStr);
-                    
-                    // 휴가 처리
-                    JSONArray vacationsArray = combinedData.optJSONArray("vacations");
-                    if (vacationsArray != null) {
-                        for (int i = 0; i < vacationsArray.length(); i++) {
-                            try {
-                                JSONObject vacation = vacationsArray.getJSONObject(i);
-                                String vacDate = vacation.optString("date", "");
-                                if (!vacDate.isEmpty()) {
-                                    String employeeName = vacation.optString("employeeName", "");
-                                    String type = vacation.optString("type", "휴가");
-                                    String title = employeeName.isEmpty() ? type : employeeName + " " + type;
-                                    addTask(tasksByDate, vacDate, title, "vacation", true);
-                                }
-                            } catch (Exception e) {}
-                        }
-                    }
-                    
-                    // 할일 처리
-                    JSONArray calendarArray = combinedData.optJSONArray("calendar");
-                    if (calendarArray != null) {
-                        for (int i = 0; i < calendarArray.length(); i++) {
-                            try {
-                                JSONObject todo = calendarArray.getJSONObject(i);
-                                boolean completed = todo.optBoolean("completed", false);
-                                boolean isVacation = todo.optBoolean("isVacation", false);
-                                
-                                if (completed && !isVacation) continue;
-                                
-                                String title = todo.optString("title", "");
-                                String priority = todo.optString("priority", "medium");
-                                String startDate = todo.optString("startDate", "");
-                                String dueDate = todo.optString("dueDate", "");
-                                
-                                String startDateKey = (startDate != null && startDate.length() >= 10) ? startDate.substring(0, 10) : "";
-                                String dueDateKey = (dueDate != null && dueDate.length() >= 10) ? dueDate.substring(0, 10) : "";
-                                
-                                if (!startDateKey.isEmpty() && !dueDateKey.isEmpty()) {
-                                    try {
-                                        Calendar startCal = Calendar.getInstance();
-                                        Calendar endCal = Calendar.getInstance();
-                                        startCal.setTime(dateKeyFormat.parse(startDateKey));
-                                        endCal.setTime(dateKeyFormat.parse(dueDateKey));
-                                        
-                                        while (!startCal.after(endCal)) {
-                                            String dateKey = dateKeyFormat.format(startCal.getTime());
-                                            addTask(tasksByDate, dateKey, title, priority, isVacation);
-                                            startCal.add(Calendar.DAY_OF_MONTH, 1);
-                                        }
-                                    } catch (Exception e) {
-                                        if (!startDateKey.isEmpty()) {
-                                            addTask(tasksByDate, startDateKey, title, priority, isVacation);
-                                        }
-                                    }
-                                } else if (!startDateKey.isEmpty()) {
-                                    try {
-                                        Calendar startCal = Calendar.getInstance();
-                                        startCal.setTime(dateKeyFormat.parse(startDateKey));
-                                        
-                                        // 시작일이 미래인 경우: 해당 날짜에만 표시
-                                        // 시작일이 과거이고 미완료인 경우: 시작일부터 오늘까지 표시
-                                        if (startCal.after(today)) {
-                                            // 미래 날짜: 해당 날짜에만 표시
-                                            addTask(tasksByDate, startDateKey, title, priority, isVacation);
-                                        } else {
-                                            // 과거 또는 오늘: 시작일부터 오늘까지 표시 (이월)
-                                            Calendar endCal = (Calendar) today.clone();
-                                            while (!startCal.after(endCal)) {
-                                                String dateKey = dateKeyFormat.format(startCal.getTime());
-                                                addTask(tasksByDate, dateKey, title, priority, isVacation);
-                                                startCal.add(Calendar.DAY_OF_MONTH, 1);
-                                            }
-                                        }
-                                    } catch (Exception e) {
-                                        addTask(tasksByDate, startDateKey, title, priority, isVacation);
-                                    }
-                                } else if (!dueDateKey.isEmpty()) {
-                                    addTask(tasksByDate, dueDateKey, title, priority, isVacation);
-                                }
-                            } catch (Exception e) {}
-                        }
-                    }
-                } catch (Exception e) {
-                    android.util.Log.e("WeeklyWidget", "JSON parse error: " + e.getMessage());
-                }
-            }
-            
-            // 7일 날짜 및 할일
+            // 7일 날짜 헤더 (할일 열은 그리드 어댑터)
             for (int dayIndex = 0; dayIndex < 7; dayIndex++) {
-                Calendar dayCal = (Calendar) weekStart.clone();
-                dayCal.add(Calendar.DAY_OF_MONTH, dayIndex);
-                String dayKey = dateKeyFormat.format(dayCal.getTime());
-                int dayOfMonth = dayCal.get(Calendar.DAY_OF_MONTH);
+                int dayNum = weekStartDay + dayIndex;
+                String dayKey = DateKeys.format(dayNum);
+                int dayOfMonth = DateKeys.dayOfMonth(dayNum);
                 
                 views.setTextViewText(DAY_IDS[dayIndex], String.valueOf(dayOfMonth));
                 
-                if (dayKey.equals(selectedDateKey)) {
-                    views.setInt(DAY_IDS[dayIndex], "setBackgroundResource", R.drawable.widget_today_button_bg);
+                if (dayNum == selectedDay) {
+                    views.setBackgroundResource(DAY_IDS[dayIndex], R.drawable.widget_today_button_bg);
                     views.setTextColor(DAY_IDS[dayIndex], Color.WHITE);
-                } else if (dayKey.equals(todayKey)) {
+                } else if (dayNum == todayDay) {
                     views.setTextColor(DAY_IDS[dayIndex], Color.parseColor("#3B82F6"));
-                    views.setInt(DAY_IDS[dayIndex], "setBackgroundResource", android.R.color.transparent);
+                    views.setBackgroundResource(DAY_IDS[dayIndex], android.R.color.transparent);
                 } else {
                     views.setTextColor(DAY_IDS[dayIndex], Color.WHITE);
-                    views.setInt(DAY_IDS[dayIndex], "setBackgroundResource", android.R.color.transparent);
+                    views.setBackgroundResource(DAY_IDS[dayIndex], android.R.color.transparent);
                 }
                 
                 // 날짜 헤더 열 전체 클릭
@@ -249,105 +115,57 @@ public class WeeklyWidgetProvider extends AppWidgetProvider {
                 selectDayIntent1.setAction(ACTION_SELECT_DAY);
                 selectDayIntent1.putExtra("selected_date", dayKey);
                 selectDayIntent1.setData(Uri.parse("weekly://daycol/" + dayIndex));
-                PendingIntent selectDayPendingIntent1 = PendingIntent.getBroadcast(context, 3020 + dayIndex, selectDayIntent1,
-                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
-                views.setOnClickPendingIntent(DAY_COL_IDS[dayIndex], selectDayPendingIntent1);
-                
-                // 할일 열 전체 클릭
-                Intent selectDayIntent2 = new Intent(context, WeeklyWidgetProvider.class);
-                selectDayIntent2.setAction(ACTION_SELECT_DAY);
-                selectDayIntent2.putExtra("selected_date", dayKey);
-                selectDayIntent2.setData(Uri.parse("weekly://col/" + dayIndex));
-                PendingIntent selectDayPendingIntent2 = PendingIntent.getBroadcast(context, 3030 + dayIndex, selectDayIntent2,
-                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
-                views.setOnClickPendingIntent(COL_IDS[dayIndex], selectDayPendingIntent2);
-                
-                List<TaskInfo> tasks = tasksByDate.get(dayKey);
-                
-                for (int taskIdx = 0; taskIdx < MAX_TASKS_PER_COLUMN; taskIdx++) {
-                    int taskViewId = TASK_IDS[dayIndex][taskIdx];
-                    
-                    if (tasks != null && taskIdx < tasks.size()) {
-                        TaskInfo task = tasks.get(taskIdx);
-                        views.setTextViewText(taskViewId, task.title);
-                        views.setInt(taskViewId, "setBackgroundResource", getBorderDrawable(task.priority, task.isVacation));
-                        views.setViewVisibility(taskViewId, android.view.View.VISIBLE);
-                    } else {
-                        views.setViewVisibility(taskViewId, android.view.View.GONE);
-                    }
-                }
-                
-                int moreViewId = TASK_IDS[dayIndex][MAX_TASKS_PER_COLUMN];
-                if (tasks != null && tasks.size() > MAX_TASKS_PER_COLUMN) {
-                    int more = tasks.size() - MAX_TASKS_PER_COLUMN;
-                    views.setTextViewText(moreViewId, "+" + more);
-                    views.setViewVisibility(moreViewId, android.view.View.VISIBLE);
-                } else {
-                    views.setViewVisibility(moreViewId, android.view.View.GONE);
-                }
+                views.setOnClickBroadcast(DAY_COL_IDS[dayIndex], 3020 + dayIndex, selectDayIntent1);
             }
             
             // 선택된 날짜 레이블
-            SimpleDateFormat labelFormat = new SimpleDateFormat("M/d (EEE)", Locale.KOREAN);
-            try {
-                Calendar selectedCal = Calendar.getInstance();
-                selectedCal.setTime(dateKeyFormat.parse(selectedDateKey));
-                views.setTextViewText(R.id.selected_date_label, labelFormat.format(selectedCal.getTime()) + " 할일");
-            } catch (Exception e) {
+            if (selectedDay != DateKeys.NONE) {
+                views.setTextViewText(R.id.selected_date_label, DateKeys.shortLabel(selectedDay) + " 할일");
+            } else {
                 views.setTextViewText(R.id.selected_date_label, "오늘 할일");
             }
             
-            // ListView 설정 (오늘 할일 위젯과 동일한 방식)
+            // ListView 설정 (오늘 할일 위젯과 동일한 방식, 전체 업데이트 때만)
             Intent serviceIntent = new Intent(context, WeeklyRemoteViewsService.class);
             serviceIntent.putExtra(AppWidgetManager.EXTRA_APPWIDGET_ID, appWidgetId);
             serviceIntent.setData(Uri.parse(serviceIntent.toUri(Intent.URI_INTENT_SCHEME)));
-            views.setRemoteAdapter(R.id.weekly_task_list, serviceIntent);
+            views.full().setRemoteAdapter(R.id.weekly_task_list, serviceIntent);
             
             // ListView 아이템 클릭 처리 (체크박스 토글 / 앱 열기)
             Intent itemClickIntent = new Intent(context, WeeklyWidgetProvider.class);
             itemClickIntent.setAction("com.anzpek.todolist.WEEKLY_TOGGLE_TASK");
             PendingIntent itemClickPendingIntent = PendingIntent.getBroadcast(context, 3050, itemClickIntent,
                 PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
-            views.setPendingIntentTemplate(R.id.weekly_task_list, itemClickPendingIntent);
+            views.full().setPendingIntentTemplate(R.id.weekly_task_list, itemClickPendingIntent);
+            
+            // 7개 날짜 열 그리드 (같은 서비스의 그리드 팩토리, 열 클릭 → 날짜 선택)
+            Intent gridIntent = new Intent(context, WeeklyRemoteViewsService.class);
+            gridIntent.putExtra(AppWidgetManager.EXTRA_APPWIDGET_ID, appWidgetId);
+            gridIntent.putExtra(WeeklyGridFactory.EXTRA_GRID, true);
+            gridIntent.setData(Uri.parse(gridIntent.toUri(Intent.URI_INTENT_SCHEME)));
+            views.full().setRemoteAdapter(R.id.weekly_grid, gridIntent);
+            
+            Intent selectDayIntent = new Intent(context, WeeklyWidgetProvider.class);
+            selectDayIntent.setAction(ACTION_SELECT_DAY);
+            PendingIntent selectDayPendingIntent = PendingIntent.getBroadcast(context, 3030, selectDayIntent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
+            views.full().setPendingIntentTemplate(R.id.weekly_grid, selectDayPendingIntent);
             
-            // ListView 데이터 갱신
+            // ListView / 그리드 데이터 갱신
             appWidgetManager.notifyAppWidgetViewDataChanged(appWidgetId, R.id.weekly_task_list);
+            appWidgetManager.notifyAppWidgetViewDataChanged(appWidgetId, R.id.weekly_grid);
             
         } catch (Exception e) {
             android.util.Log.e("WeeklyWidget", "Error: " + e.getMessage(), e);
         }
         
-        appWidgetManager.updateAppWidget(appWidgetId, views);
-    }
-    
-    private static int getBorderDrawable(String priority, boolean isVacation) {
-        if (isVacation) return R.drawable.task_border_low;
-        if (priority == null) return R.drawable.task_border_medium;
-        switch (priority) {
-            case "urgent": return R.drawable.task_border_urgent;
-            case "high": return R.drawable.task_border_high;
-            case "medium": return R.drawable.task_border_medium;
-            case "low": return R.drawable.task_border_low;
-            case "vacation": return R.drawable.task_border_low;
-            default: return R.drawable.task_border_default;
-        }
-    }
-    
-    private static void addTask(Map<String, List<TaskInfo>> tasksByDate, String dateKey, String title, String priority, boolean isVacation) {
-        if (!tasksByDate.containsKey(dateKey)) {
-            tasksByDate.put(dateKey, new ArrayList<TaskInfo>());
-        }
-        if (isVacation) {
-            tasksByDate.get(dateKey).add(0, new TaskInfo(title, priority, isVacation));
-        } else {
-            tasksByDate.get(dateKey).add(new TaskInfo(title, priority, isVacation));
-        }
+        views.push(appWidgetManager, appWidgetId);
     }
     
-    private static Calendar getWeekStart(Calendar cal) {
-        Calendar weekStart = (Calendar) cal.clone();
-        weekStart.set(Calendar.DAY_OF_WEEK, Calendar.SUNDAY);
-        return weekStart;
+    // 저장된 주 시작일 (없거나 형식이 틀리면 기준일이 속한 주의 일요일)
+    static int storedWeekStart(SharedPreferences prefs, int fallbackDay) {
+        int weekStart = DateKeys.parse(prefs.getString("weekly_widget_week_start", null));
+        return weekStart != DateKeys.NONE ? weekStart : DateKeys.startOfWeek(fallbackDay);
     }
 
     @Override
@@ -358,21 +176,18 @@ public class WeeklyWidgetProvider extends AppWidgetProvider {
         if (action == null) return;
         
         SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        SimpleDateFormat dateKeyFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
         
         if (ACTION_PREV_WEEK.equals(action)) {
-            navigateWeek(prefs, dateKeyFormat, -7);
+            navigateWeek(prefs, -7);
             refreshWidget(context);
         } else if (ACTION_NEXT_WEEK.equals(action)) {
-            navigateWeek(prefs, dateKeyFormat, 7);
+            navigateWeek(prefs, 7);
             refreshWidget(context);
         } else if (ACTION_GO_TODAY.equals(action)) {
-            Calendar today = Calendar.getInstance();
-            Calendar weekStart = getWeekStart(today);
-            String todayKey = dateKeyFormat.format(today.getTime());
+            int today = DateKeys.today();
             prefs.edit()
-                .putString("weekly_widget_week_start", dateKeyFormat.format(weekStart.getTime()))
-                .putString("weekly_widget_selected_date", todayKey)
+                .putString("weekly_widget_week_start", DateKeys.format(DateKeys.startOfWeek(today)))
+                .putString("weekly_widget_selected_date", DateKeys.format(today))
                 .apply();
             refreshWidget(context);
         } else if (ACTION_SELECT_DAY.equals(action)) {
@@ -392,7 +207,7 @@ public class WeeklyWidgetProvider extends AppWidgetProvider {
                 if (taskId != null && !taskId.isEmpty() && !taskId.startsWith("vac_")) {
                     android.util.Log.d("WeeklyWidget", "Toggle task: " + taskId);
                     toggleTaskInPrefs(context, taskId);
-                    refreshWidget(context);
+                    refreshAfterIngest(context);
                 }
             } else if ("open_app".equals(clickAction)) {
                 android.util.Log.d("WeeklyWidget", "Open app for task: " + taskId);
@@ -403,54 +218,14 @@ public class WeeklyWidgetProvider extends AppWidgetProvider {
         }
     }
     
-    // SharedPreferences에서 할일 완료 상태 토글
+    // 스냅샷에서 할일 완료 상태 토글
     private void toggleTaskInPrefs(Context context, String taskId) {
-        try {
-            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            String dataStr = prefs.getString(PREF_PREFIX_KEY + "data", "");
-            
-            if (dataStr.isEmpty()) return;
-            
-            JSONObject combinedData = new JSONObject(dataStr);
-            JSONArray calendarArray = combinedData.optJSONArray("calendar");
-            
-            if (calendarArray == null) return;
-            
-            boolean found = false;
-            boolean newCompletedState = false;
-            
-            for (int i = 0; i < calendarArray.length(); i++) {
-                JSONObject todo = calendarArray.getJSONObject(i);
-                String id = todo.optString("id", "");
-                
-                if (id.equals(taskId)) {
-                    boolean currentCompleted = todo.optBoolean("completed", false);
-                    newCompletedState = !currentCompleted;
-                    todo.put("completed", newCompletedState);
-                    
-                    if (newCompletedState) {
-                        todo.put("completedAt", new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US).format(new java.util.Date()));
-                    } else {
-                        todo.remove("completedAt");
-                    }
-                    
-                    calendarArray.put(i, todo);
-                    found = true;
-                    android.util.Log.d("WeeklyWidget", "Toggled task " + taskId + " to completed=" + newCompletedState);
-                    break;
-                }
-            }
-            
-            if (found) {
-                combinedData.put("calendar", calendarArray);
-                prefs.edit().putString(PREF_PREFIX_KEY + "data", combinedData.toString()).apply();
-                
-                // Firebase Firestore 동기화
-                syncToggleToFirestore(taskId, newCompletedState);
-            }
-            
-        } catch (Exception e) {
-            android.util.Log.e("WeeklyWidget", "Error toggling task: " + e.getMessage());
+        Boolean newCompletedState = WidgetStore.get(context).toggleTask(taskId, DateKeys.todayKey());
+        
+        if (newCompletedState != null) {
+            android.util.Log.d("WeeklyWidget", "Toggled task " + taskId + " to completed=" + newCompletedState);
+            // Firebase Firestore 동기화
+            syncToggleToFirestore(taskId, newCompletedState);
         }
     }
     
@@ -495,30 +270,28 @@ public class WeeklyWidgetProvider extends AppWidgetProvider {
         }
     }
     
-    private void navigateWeek(SharedPreferences prefs, SimpleDateFormat dateKeyFormat, int days) {
-        try {
-            String storedWeekStart = prefs.getString("weekly_widget_week_start", null);
-            Calendar weekStart = Calendar.getInstance();
-            if (storedWeekStart != null) {
+    private void navigateWeek(SharedPreferences prefs, int days) {
+        int weekStart = storedWeekStart(prefs, DateKeys.today()) + days;
+        
+        prefs.edit()
+            .putString("weekly_widget_week_start", DateKeys.format(weekStart))
+            .putString("weekly_widget_selected_date", DateKeys.format(weekStart))
+            .apply();
+    }
+    
+    // 토글은 메모리 모델에만 반영되므로 ingest 큐가 새 스냅샷을 게시한 뒤에 다시 그린다
+    private void refreshAfterIngest(final Context context) {
+        final PendingResult result = goAsync();
+        WidgetIngestQueue.get(context).submit(false, new Runnable() {
+            @Override
+            public void run() {
                 try {
-                    weekStart.setTime(dateKeyFormat.parse(storedWeekStart));
-                } catch (Exception e) {
-                    weekStart = getWeekStart(weekStart);
+                    refreshWidget(context);
+                } finally {
+                    result.finish();
                 }
-            } else {
-                weekStart = getWeekStart(weekStart);
             }
-            
-            weekStart.add(Calendar.DAY_OF_MONTH, days);
-            Calendar selectedDate = (Calendar) weekStart.clone();
-            
-            prefs.edit()
-                .putString("weekly_widget_week_start", dateKeyFormat.format(weekStart.getTime()))
-                .putString("weekly_widget_selected_date", dateKeyFormat.format(selectedDate.getTime()))
-                .apply();
-        } catch (Exception e) {
-            android.util.Log.e("WeeklyWidget", "navigateWeek error: " + e.getMessage());
-        }
+        });
     }
     
     private void refreshWidget(Context context) {
@@ -530,16 +303,4 @@ public class WeeklyWidgetProvider extends AppWidgetProvider {
             updateAppWidget(context, appWidgetManager, id);
         }
     }
-    
-    private static class TaskInfo {
-        String title;
-        String priority;
-        boolean isVacation;
-        
-        TaskInfo(String title, String priority, boolean isVacation) {
-            this.title = title;
-            this.priority = priority;
-            this.isVacation = isVacation;
-        }
-    }
 }
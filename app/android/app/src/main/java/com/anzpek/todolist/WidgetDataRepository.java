@@ -0,0 +1,44 @@
+package com.anzpek.todolist;
+
+import android.content.Context;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 프로세스 전체에서 공유하는 위젯 데이터 스냅샷
+ *
+ * 모든 Provider/Factory 가 같은 WidgetSnapshot 인스턴스를 받는다 (스냅샷은 읽기 전용이라 공유해도 안전).
+ * WidgetStore 는 새 스냅샷을 옆에서 완성한 뒤 publish() 로 참조 하나만 바꿔 끼운다 (디스크는 rename 으로 교체).
+ * 읽는 쪽은 락 없이 참조만 읽으므로 ingest 중에도 기다리지 않고, 항상 한 버전 전체를 본다.
+ */
+final class WidgetDataRepository {
+
+    private static final AtomicReference<WidgetSnapshot> current = new AtomicReference<>();
+
+    private WidgetDataRepository() {}
+
+    static WidgetSnapshot get(Context context) {
+        WidgetSnapshot snapshot = current.get();
+        if (snapshot != null) return snapshot;
+        // 프로세스 시작 후 첫 요청만 디스크에서 읽는다 (동시에 여러 스레드가 읽어도 먼저 올린 쪽을 쓴다)
+        WidgetSnapshot loaded = WidgetSnapshot.load(context.getApplicationContext());
+        if (current.compareAndSet(null, loaded)) {
+            android.util.Log.d("WidgetRepository", "Loaded snapshot v" + loaded.dataVersion()
+                + " (" + loaded.taskCount() + " tasks, " + loaded.vacationCount() + " vacations)");
+            return loaded;
+        }
+        return publish(loaded);
+    }
+
+    /**
+     * 새 스냅샷 게시 (디스크 기록이 끝난 뒤 WidgetStore 가 호출)
+     * 이미 같거나 더 새로운 버전이 올라가 있으면 그대로 두고 그 스냅샷을 돌려준다.
+     */
+    static WidgetSnapshot publish(WidgetSnapshot snapshot) {
+        while (true) {
+            WidgetSnapshot published = current.get();
+            if (published != null && published.dataVersion() >= snapshot.dataVersion()) return published;
+            if (current.compareAndSet(published, snapshot)) return snapshot;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.anzpek.todolist;
+
+import java.util.List;
+
+/**
+ * 위젯 데이터 섹션별 내용 해시 (FNV-1a 64bit, 항목을 순서대로 누적)
+ *
+ * 플러그인이 직전 동기화 때의 해시와 비교해서 바뀐 게 없으면
+ * 스냅샷 기록과 위젯 재렌더링을 건너뛴다.
+ */
+final class WidgetHash {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private long hash = OFFSET_BASIS;
+
+    WidgetHash add(String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                hash = (hash ^ (c & 0xff)) * PRIME;
+                hash = (hash ^ (c >>> 8)) * PRIME;
+            }
+        }
+        // 필드 구분자 ("ab"+"c" 와 "a"+"bc" 구분)
+        hash = (hash ^ 0x1f) * PRIME;
+        return this;
+    }
+
+    WidgetHash add(boolean value) {
+        hash = (hash ^ (value ? 1 : 2)) * PRIME;
+        return this;
+    }
+
+    WidgetHash add(int value) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            hash = (hash ^ ((value >>> shift) & 0xff)) * PRIME;
+        }
+        return this;
+    }
+
+    long value() {
+        return hash;
+    }
+
+    /**
+     * 컬렉션 위젯 행의 안정 id: 행 키(할일 id, 휴가 줄은 줄 번호)만
+     * 재정렬되거나 내용(제목, 완료 상태)이 바뀌어도 같은 행은 같은 id 다.
+     */
+    static long rowId(String key) {
+        return new WidgetHash().add(key).value();
+    }
+
+    /**
+     * 행 내용 버전: 보이는 내용 (id 와 따로 비교해서 내용이 바뀐 행만 RemoteViews 를 다시 만든다, RowViewCache)
+     * @param readOnly 휴가 줄/반복 발생일처럼 토글 없는 행 (같은 id 라도 레이아웃이 다르다)
+     */
+    static long rowContent(String title, String priority, boolean completed, boolean readOnly) {
+        return new WidgetHash().add(title).add(priority).add(completed).add(readOnly).value();
+    }
+
+    static long ofTasks(List<WidgetSnapshot.Task> tasks) {
+        WidgetHash h = new WidgetHash();
+        for (WidgetSnapshot.Task t : tasks) {
+            h.add(t.id).add(t.title).add(t.priority).add(t.completed).add(t.isVacation)
+                .add(t.startDate).add(t.dueDate).add(t.completedAt);
+        }
+        return h.value();
+    }
+
+    static long ofVacations(List<WidgetSnapshot.Vacation> vacations) {
+        WidgetHash h = new WidgetHash();
+        for (WidgetSnapshot.Vacation v : vacations) {
+            h.add(v.id).add(v.date).add(v.type).add(v.employeeName);
+        }
+        return h.value();
+    }
+
+    static long ofRecurring(List<WidgetSnapshot.Recurring> rules) {
+        WidgetHash h = new WidgetHash();
+        for (WidgetSnapshot.Recurring r : rules) {
+            h.add(r.id).add(r.title).add(r.priority).add(r.startDate).add(r.endDate)
+                .add(r.kind + ":" + r.weekday + ":" + r.ordinal + ":" + r.holidayShift);
+        }
+        return h.value();
+    }
+}
@@ -0,0 +1,143 @@
+package com.anzpek.todolist;
+
+import android.appwidget.AppWidgetManager;
+import android.content.ComponentName;
+import android.content.Context;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 위젯 데이터 반영 큐 (단일 스레드, 디바운스)
+ *
+ * 플러그인과 위젯 토글은 WidgetStore 메모리 모델만 바꾸고 바로 돌아간 뒤 여기에 제출한다.
+ * 전체 교체(updateWidget)는 파싱부터 execute() 로 이 스레드에서 한다.
+ * 디바운스 창 안에 들어온 제출은 하나로 합쳐져서 저널/스냅샷 기록, 스냅샷 게시, 위젯 재렌더링이 한 번만 일어난다.
+ */
+final class WidgetIngestQueue {
+
+    static final long DEFAULT_DEBOUNCE_MS = 150;
+
+    private static WidgetIngestQueue instance;
+
+    private final Context context;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    private long debounceMs = DEFAULT_DEBOUNCE_MS;
+    private ScheduledFuture<?> pending;
+    private boolean pendingRefresh;
+    // 반영이 끝난 뒤 실행할 작업 (합쳐진 제출의 것까지 모두)
+    private final List<Runnable> pendingCallbacks = new ArrayList<>();
+
+    // 통계: 제출 수, 실제 반영 수, 다음 제출에 합쳐져 버려진 수
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    private WidgetIngestQueue(Context context) {
+        this.context = context;
+    }
+
+    static synchronized WidgetIngestQueue get(Context context) {
+        if (instance == null) {
+            instance = new WidgetIngestQueue(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    synchronized void setDebounceMs(long ms) {
+        debounceMs = Math.max(0, ms);
+    }
+
+    synchronized long debounceMs() {
+        return debounceMs;
+    }
+
+    /**
+     * 반영 요청 (이미 대기 중인 요청이 있으면 합치고 타이머를 다시 건다)
+     * @param refresh 위젯 재렌더링이 필요한지 (합쳐진 요청 중 하나라도 true 면 재렌더링)
+     */
+    synchronized void submit(boolean refresh) {
+        submit(refresh, null);
+    }
+
+    /**
+     * @param afterApply 새 스냅샷이 게시된 뒤 큐 스레드에서 실행 (위젯 토글 후 그 위젯만 다시 그릴 때)
+     */
+    synchronized void submit(boolean refresh, Runnable afterApply) {
+        submitted.incrementAndGet();
+        if (afterApply != null) pendingCallbacks.add(afterApply);
+        if (pending != null && pending.cancel(false)) {
+            coalesced.incrementAndGet();
+        }
+        pendingRefresh |= refresh;
+        pending = executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                apply();
+            }
+        }, debounceMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 큐 스레드에서 바로 실행 (디바운스 없음, 제출 순서대로)
+     * 플러그인 호출 스레드를 붙잡지 않도록 큰 전체 교체의 파싱/비교를 여기로 넘긴다.
+     */
+    void execute(Runnable work) {
+        executor.execute(work);
+    }
+
+    long submittedCount() { return submitted.get(); }
+
+    long appliedCount() { return applied.get(); }
+
+    long coalescedCount() { return coalesced.get(); }
+
+    private void apply() {
+        boolean refresh;
+        List<Runnable> callbacks;
+        synchronized (this) {
+            refresh = pendingRefresh;
+            pendingRefresh = false;
+            pending = null;
+            callbacks = new ArrayList<>(pendingCallbacks);
+            pendingCallbacks.clear();
+        }
+        try {
+            WidgetStore.get(context).flush();
+        } catch (IOException e) {
+            android.util.Log.e("WidgetIngest", "Failed to write snapshot: " + e.getMessage());
+        }
+        if (refresh) {
+            refreshWidgets(context);
+        }
+        for (Runnable callback : callbacks) {
+            try {
+                callback.run();
+            } catch (Exception e) {
+                android.util.Log.e("WidgetIngest", "Callback failed: " + e.getMessage(), e);
+            }
+        }
+        applied.incrementAndGet();
+        android.util.Log.d("WidgetIngest", "Applied (submitted=" + submitted.get() + ", coalesced=" + coalesced.get() + ")");
+    }
+
+    static void refreshWidgets(Context context) {
+        // Trigger Widget Update (Directly)
+        AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
+        int[] ids = appWidgetManager.getAppWidgetIds(new ComponentName(context, TodoListWidget.class));
+
+        android.util.Log.d("WidgetPlugin", "📱 Found " + ids.length + " widget instances");
+
+        for (int id : ids) {
+            TodoListWidget.updateAppWidget(context, appWidgetManager, id);
+            android.util.Log.d("WidgetPlugin", "📱 Updated widget ID: " + id);
+        }
+    }
+}
@@ -0,0 +1,967 @@
+package com.anzpek.todolist;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 위젯 데이터 바이너리 스냅샷 (files/widget_snapshot.bin)
+ *
+ * 플러그인이 한 번 기록하고, 모든 위젯/팩토리는 MappedByteBuffer로 열어서
+ * JSON 트리를 만들지 않고 인덱스로 바로 읽는다.
+ *
+ * 파일 구조 (little endian)
+ * - 헤더 56바이트: magic, format version, taskCount, vacationRangeCount, stringCount, 각 섹션 오프셋, 데이터 버전,
+ *   employeeCount, typeCount, recurringCount, recurringOffset
+ * - 할일 레코드 24바이트 고정: id, title (문자열 풀 인덱스), startDay, dueDay, completedDay (epoch day), priority, flags
+ * - 휴가 구간 레코드 16바이트 고정: startDay, endDay (epoch day), employeeCode, typeCode (short), 첫 id 위치
+ * - 사전: 직원 이름 employeeCount개 + 휴가 유형 typeCount개 (문자열 풀 인덱스, 휴가 레코드 바로 뒤)
+ * - 휴가 id: 구간의 날짜마다 하나씩 (문자열 풀 인덱스, 사전 바로 뒤)
+ * - 반복 규칙 레코드 24바이트 고정: id, title, startDay, endDay, kind, priority, weekday, ordinal, holidayShift (+3 패딩)
+ *   (RecurrenceEngine 참고)
+ * - 문자열 풀: (stringCount + 1)개의 오프셋 + UTF-8 바이트
+ *
+ * 휴가는 JS 에서 사람/날짜마다 한 줄로 오지만, 같은 직원의 같은 유형이 연속된 날짜는
+ * 기록할 때 하나의 구간으로 합친다. 날짜별 조회는 vacations() 의 VacationIndex 로 한다.
+ * 직원 이름/유형("연차", "오전", "병가" ...)은 사전 코드로 저장하고,
+ * 표시 제목("홍길동 연차")은 (직원, 유형) 조합마다 한 번만 만든다.
+ * 하루 단위 id 는 부분 삭제(deleteVacations)와 편집 모델 복원을 위해 그대로 보관한다.
+ *
+ * 반복 할일은 템플릿 규칙만 저장하고 발생일은 recurrence() 가 화면에 보이는 범위만 계산한다.
+ *
+ * 읽는 쪽은 tasks() 로 TaskTable(병렬 primitive 배열)을 받아서 쓴다 (스냅샷마다 한 번만 생성).
+ *
+ * 스냅샷 이후의 부분 변경(upsert/delete)은 WidgetStore의 저널에 쌓이고,
+ * load() 시 저널이 있으면 재생해서 최신 상태를 만든다.
+ * 실행 중에는 저널에 덧붙일 때마다 다시 인코딩하지 않고 withTasks() 로 할일 테이블만 바꾼 스냅샷을 게시한다.
+ */
+final class WidgetSnapshot {
+
+    private static final String FILE_NAME = "widget_snapshot.bin";
+    private static final String PREFS_NAME = "WidgetPrefs";
+    private static final String LEGACY_DATA_KEY = "todo_list_data";
+
+    private static final int MAGIC = 0x53574454; // "TDWS"
+    private static final short FORMAT_VERSION = 7;
+    private static final int HEADER_SIZE = 56;
+    private static final int TASK_RECORD_SIZE = 24;
+    private static final int VACATION_RECORD_SIZE = 16;
+    private static final int RECURRING_RECORD_SIZE = 24;
+    private static final int NO_STRING = -1;
+
+    static final byte PRIORITY_URGENT = 0;
+    static final byte PRIORITY_HIGH = 1;
+    static final byte PRIORITY_MEDIUM = 2;
+    static final byte PRIORITY_LOW = 3;
+    private static final String[] PRIORITY_NAMES = {"urgent", "high", "medium", "low"};
+
+    static final WidgetSnapshot EMPTY = new WidgetSnapshot(null, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    // 쓰기/편집용 할일 모델 (날짜는 yyyy-MM-dd 키, 없으면 "")
+    static final class Task {
+        String id = "";
+        String title = "";
+        String priority = "medium";
+        boolean completed;
+        boolean isVacation;
+        String startDate = "";
+        String dueDate = "";
+        String completedAt = "";
+    }
+
+    // 쓰기/편집용 휴가 모델
+    static final class Vacation {
+        String id = "";
+        String date = "";
+        String type = "휴가";
+        String employeeName = "";
+    }
+
+    // 쓰기/편집용 반복 규칙 (RecurringTemplate 중 위젯이 전개하는 부분)
+    static final class Recurring {
+        String id = "";
+        String title = "";
+        String priority = "medium";
+        byte kind;
+        int weekday = -1; // 0=일 ~ 6=토 (WEEKLY, MONTHLY_WEEKDAY)
+        int ordinal; // MONTHLY_DATE: 1-31, -1/-2/-3, MONTHLY_WEEKDAY: 1-4, -1=마지막
+        int holidayShift; // 주말/공휴일이면 -1=앞 근무일, +1=뒤 근무일, 0=그대로
+        String startDate = "";
+        String endDate = "";
+    }
+
+    private final ByteBuffer buffer;
+    private final long dataVersion;
+    private final int taskCount;
+    private final int vacationRangeCount;
+    private final int vacationCount;
+    private final int taskOffset;
+    private final int vacationOffset;
+    private final int poolOffset;
+    private final int poolDataOffset;
+    private final int dictionaryOffset;
+    private final int vacationIdOffset;
+    private final int recurringCount;
+    private final int recurringOffset;
+    private final int employeeCount;
+    private final int typeCount;
+    // 버퍼의 문자열 풀 크기 (이보다 큰 인덱스는 withTasks 가 메모리에만 덧붙인 문자열)
+    private final int poolStringCount;
+    private final String[] strings;
+    private final String[] labels;
+    private volatile TaskTable taskTable;
+    private volatile TaskVisibility taskVisibility;
+    private volatile TaskIntervalIndex intervalIndex;
+    private volatile VacationIndex vacationIndex;
+    private volatile RecurrenceEngine recurrenceEngine;
+    private volatile KanbanPartition kanbanPartition;
+
+    private WidgetSnapshot(ByteBuffer buffer, long dataVersion, int taskCount, int vacationRangeCount, int stringCount,
+                           int taskOffset, int vacationOffset, int poolOffset, int employeeCount, int typeCount,
+                           int recurringCount, int recurringOffset) {
+        this.buffer = buffer;
+        this.dataVersion = dataVersion;
+        this.taskCount = taskCount;
+        this.vacationRangeCount = vacationRangeCount;
+        this.taskOffset = taskOffset;
+        this.vacationOffset = vacationOffset;
+        this.poolOffset = poolOffset;
+        this.poolDataOffset = poolOffset + (stringCount + 1) * 4;
+        this.dictionaryOffset = vacationOffset + vacationRangeCount * VACATION_RECORD_SIZE;
+        this.vacationIdOffset = dictionaryOffset + (employeeCount + typeCount) * 4;
+        this.recurringCount = recurringCount;
+        this.recurringOffset = recurringOffset;
+        // 하루 단위 휴가 수 = id 섹션 크기 (id 섹션 바로 뒤가 반복 규칙)
+        this.vacationCount = (recurringOffset - vacationIdOffset) / 4;
+        this.employeeCount = employeeCount;
+        this.typeCount = typeCount;
+        this.poolStringCount = stringCount;
+        this.strings = new String[stringCount];
+        this.labels = new String[employeeCount * typeCount];
+    }
+
+    // withTasks 용: 버퍼/섹션은 base 것을 그대로 쓰고 할일 테이블만 바꾼다
+    private WidgetSnapshot(WidgetSnapshot base, long dataVersion, int taskCount, String[] strings) {
+        this.buffer = base.buffer;
+        this.dataVersion = dataVersion;
+        this.taskCount = taskCount;
+        this.vacationRangeCount = base.vacationRangeCount;
+        this.vacationCount = base.vacationCount;
+        this.taskOffset = base.taskOffset;
+        this.vacationOffset = base.vacationOffset;
+        this.poolOffset = base.poolOffset;
+        this.poolDataOffset = base.poolDataOffset;
+        this.dictionaryOffset = base.dictionaryOffset;
+        this.vacationIdOffset = base.vacationIdOffset;
+        this.recurringCount = base.recurringCount;
+        this.recurringOffset = base.recurringOffset;
+        this.employeeCount = base.employeeCount;
+        this.typeCount = base.typeCount;
+        this.poolStringCount = base.poolStringCount;
+        this.strings = strings;
+        this.labels = base.labels;
+        // 휴가 섹션이 같으므로 이미 만든 인덱스는 그대로 쓴다
+        this.vacationIndex = base.vacationIndex;
+    }
+
+    // ===== 읽기 =====
+
+    // 플러그인이 기록할 때마다 1씩 증가하는 데이터 버전 (JS의 baseVersion과 비교)
+    long dataVersion() { return dataVersion; }
+
+    int taskCount() { return taskCount; }
+
+    // 하루 단위 휴가 수 (JS 에서 받은 행 수)
+    int vacationCount() { return vacationCount; }
+
+    // 연속된 날짜를 합친 휴가 구간 수
+    int vacationRangeCount() { return vacationRangeCount; }
+
+    /**
+     * 할일 테이블 (처음 호출할 때 레코드 섹션을 한 번 훑어서 생성, 이후 같은 인스턴스)
+     * 락 없이 만든다: 동시에 두 스레드가 만들어도 내용이 같으므로 어느 쪽이 남아도 상관없다.
+     */
+    TaskTable tasks() {
+        TaskTable cached = taskTable;
+        if (cached != null) return cached;
+        if (taskCount == 0) {
+            taskTable = TaskTable.EMPTY;
+            return TaskTable.EMPTY;
+        }
+        TaskTable table = new TaskTable(this, taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            int base = taskOffset + i * TASK_RECORD_SIZE;
+            table.idRef[i] = buffer.getInt(base);
+            table.titleRef[i] = buffer.getInt(base + 4);
+            table.startDay[i] = buffer.getInt(base + 8);
+            table.dueDay[i] = buffer.getInt(base + 12);
+            table.completedDay[i] = buffer.getInt(base + 16);
+            table.priority[i] = buffer.get(base + 20);
+            table.flags[i] = buffer.get(base + 21);
+        }
+        taskTable = table;
+        return table;
+    }
+
+    // 할일 표시 규칙 (tasks() 와 같은 방식으로 한 번만 계산)
+    TaskVisibility visibility() {
+        TaskVisibility cached = taskVisibility;
+        if (cached != null) return cached;
+        TaskVisibility computed = TaskVisibility.build(tasks());
+        taskVisibility = computed;
+        return computed;
+    }
+
+    // 그리드 표시 구간 인덱스
+    TaskIntervalIndex intervals() {
+        TaskIntervalIndex cached = intervalIndex;
+        if (cached != null) return cached;
+        TaskIntervalIndex index = TaskIntervalIndex.build(visibility());
+        intervalIndex = index;
+        return index;
+    }
+
+    // 날짜별 휴가 인덱스
+    VacationIndex vacations() {
+        VacationIndex cached = vacationIndex;
+        if (cached != null) return cached;
+        VacationIndex index = VacationIndex.build(this);
+        vacationIndex = index;
+        return index;
+    }
+
+    // 칸반 우선순위별 열 (네 열의 팩토리가 같은 날짜로 부르면 한 번만 계산, 날짜가 바뀌면 다시)
+    KanbanPartition kanban(int day) {
+        KanbanPartition cached = kanbanPartition;
+        if (cached != null && cached.day == day) return cached;
+        KanbanPartition partition = KanbanPartition.build(this, day);
+        kanbanPartition = partition;
+        return partition;
+    }
+
+    int recurringCount() { return recurringCount; }
+
+    // 반복 규칙 전개 엔진 (JS 인스턴스 id 를 알아야 하므로 할일 테이블도 함께 읽는다)
+    RecurrenceEngine recurrence() {
+        RecurrenceEngine cached = recurrenceEngine;
+        if (cached != null) return cached;
+        RecurrenceEngine engine = new RecurrenceEngine(this, recurringCount);
+        for (int r = 0; r < recurringCount; r++) {
+            int base = recurringOffset + r * RECURRING_RECORD_SIZE;
+            engine.idRef[r] = buffer.getInt(base);
+            engine.titleRef[r] = buffer.getInt(base + 4);
+            engine.startDay[r] = buffer.getInt(base + 8);
+            engine.endDay[r] = buffer.getInt(base + 12);
+            engine.kind[r] = buffer.get(base + 16);
+            engine.priority[r] = buffer.get(base + 17);
+            engine.weekday[r] = buffer.get(base + 18);
+            engine.ordinal[r] = buffer.get(base + 19);
+            engine.holidayShift[r] = buffer.get(base + 20);
+        }
+        engine.attach(tasks());
+        recurrenceEngine = engine;
+        return engine;
+    }
+
+    // 아래 vacation* 의 i 는 휴가 구간 번호 (0 ~ vacationRangeCount - 1)
+
+    // 구간 첫날/마지막날 (epoch day, 날짜가 없으면 둘 다 DateKeys.NONE)
+    int vacationStartDay(int i) { return buffer.getInt(vacationOffset + i * VACATION_RECORD_SIZE); }
+
+    int vacationEndDay(int i) { return buffer.getInt(vacationOffset + i * VACATION_RECORD_SIZE + 4); }
+
+    int vacationEmployeeCode(int i) { return buffer.getShort(vacationOffset + i * VACATION_RECORD_SIZE + 8); }
+
+    int vacationTypeCode(int i) { return buffer.getShort(vacationOffset + i * VACATION_RECORD_SIZE + 10); }
+
+    // 구간 안 day 번째 날의 휴가 id
+    String vacationId(int i, int day) {
+        int first = buffer.getInt(vacationOffset + i * VACATION_RECORD_SIZE + 12);
+        return string(buffer.getInt(vacationIdOffset + (first + day) * 4));
+    }
+
+    // 구간의 날짜 수 (날짜 없는 휴가는 1)
+    int vacationLength(int i) {
+        int start = vacationStartDay(i);
+        return start == DateKeys.NONE ? 1 : vacationEndDay(i) - start + 1;
+    }
+
+    String vacationType(int i) { return typeName(vacationTypeCode(i)); }
+
+    String vacationEmployeeName(int i) { return employeeName(vacationEmployeeCode(i)); }
+
+    // (직원, 유형) 조합 코드: 같은 코드면 표시 제목이 같다 (0 ~ vacationLabelCount() - 1)
+    int vacationLabelCode(int i) { return vacationEmployeeCode(i) * typeCount + vacationTypeCode(i); }
+
+    int vacationLabelCount() { return labels.length; }
+
+    // 휴가 표시 제목 ("홍길동 연차", 이름이 없으면 유형만) - (직원, 유형) 조합마다 한 번만 생성
+    String vacationTitle(int i) {
+        int slot = vacationLabelCode(i);
+        String label = labels[slot];
+        if (label == null) {
+            String employeeName = vacationEmployeeName(i);
+            String type = vacationType(i);
+            label = employeeName.isEmpty() ? type : employeeName + " " + type;
+            labels[slot] = label;
+        }
+        return label;
+    }
+
+    int employeeCount() { return employeeCount; }
+
+    int typeCount() { return typeCount; }
+
+    String employeeName(int code) { return string(buffer.getInt(dictionaryOffset + code * 4)); }
+
+    String typeName(int code) { return string(buffer.getInt(dictionaryOffset + (employeeCount + code) * 4)); }
+
+    // 문자열 풀에서 필요한 문자열만 디코딩 (디코딩 결과는 캐시, 풀 뒤에 덧붙인 문자열은 항상 채워져 있다)
+    String string(int index) {
+        if (index == NO_STRING) return "";
+        String cached = strings[index];
+        if (cached != null || index >= poolStringCount) return cached;
+        int start = buffer.getInt(poolOffset + index * 4);
+        int end = buffer.getInt(poolOffset + (index + 1) * 4);
+        byte[] bytes = new byte[end - start];
+        ByteBuffer view = buffer.duplicate();
+        view.position(poolDataOffset + start);
+        view.get(bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        strings[index] = value;
+        return value;
+    }
+
+    /**
+     * 할일만 바뀐 다음 버전 (WidgetStore 의 저널 flush 용, 할일 목록은 표시 순서대로)
+     * 휴가/반복 규칙 섹션과 문자열 풀은 이 스냅샷의 버퍼를 그대로 쓰고 인코딩하지 않는다.
+     * 이미 풀에 있는 id/제목은 그 인덱스를 쓰고, 새 문자열만 풀 뒤에 메모리로 덧붙인다.
+     * 덧붙인 문자열은 저널이 스냅샷으로 합쳐질 때까지만 쌓인다.
+     */
+    WidgetSnapshot withTasks(List<Task> tasks, long newVersion) {
+        TaskTable base = tasks();
+        Map<String, Integer> refs = new HashMap<>();
+        for (int i = 0; i < base.count; i++) {
+            refs.put(base.id(i), base.idRef[i]);
+            refs.put(base.title(i), base.titleRef[i]);
+        }
+        List<String> added = new ArrayList<>();
+        int[] idRefs = new int[tasks.size()];
+        int[] titleRefs = new int[tasks.size()];
+        for (int i = 0; i < tasks.size(); i++) {
+            Task t = tasks.get(i);
+            idRefs[i] = overlayRef(t.id, refs, added);
+            titleRefs[i] = overlayRef(t.title, refs, added);
+        }
+        String[] extended = Arrays.copyOf(strings, strings.length + added.size());
+        for (int k = 0; k < added.size(); k++) extended[strings.length + k] = added.get(k);
+
+        WidgetSnapshot next = new WidgetSnapshot(this, newVersion, tasks.size(), extended);
+        TaskTable table = tasks.isEmpty() ? TaskTable.EMPTY : new TaskTable(next, tasks.size());
+        for (int i = 0; i < table.count; i++) {
+            Task t = tasks.get(i);
+            table.idRef[i] = idRefs[i];
+            table.titleRef[i] = titleRefs[i];
+            table.startDay[i] = DateKeys.parse(t.startDate);
+            table.dueDay[i] = DateKeys.parse(t.dueDate);
+            table.completedDay[i] = DateKeys.parse(t.completedAt);
+            table.priority[i] = priorityCode(t.priority);
+            table.flags[i] = (byte) ((t.completed ? TaskTable.FLAG_COMPLETED : 0) | (t.isVacation ? TaskTable.FLAG_VACATION : 0));
+        }
+        next.taskTable = table;
+        return next;
+    }
+
+    // 이미 있는 문자열이면 그 인덱스, 없으면 풀 뒤에 덧붙일 인덱스
+    private int overlayRef(String value, Map<String, Integer> refs, List<String> added) {
+        Integer ref = refs.get(value);
+        if (ref != null) return ref;
+        int index = strings.length + added.size();
+        added.add(value);
+        refs.put(value, index);
+        return index;
+    }
+
+    List<Task> toTasks() {
+        TaskTable table = tasks();
+        List<Task> tasks = new ArrayList<>(table.count);
+        for (int i = 0; i < table.count; i++) {
+            Task task = new Task();
+            task.id = table.id(i);
+            task.title = table.title(i);
+            task.priority = table.priorityName(i);
+            task.completed = table.completed(i);
+            task.isVacation = table.isVacation(i);
+            task.startDate = DateKeys.format(table.startDay[i]);
+            task.dueDate = DateKeys.format(table.dueDay[i]);
+            task.completedAt = DateKeys.format(table.completedDay[i]);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    // 휴가 구간을 다시 하루 단위 편집 모델로 펼친다
+    List<Vacation> toVacations() {
+        List<Vacation> vacations = new ArrayList<>(vacationCount);
+        for (int i = 0; i < vacationRangeCount; i++) {
+            int start = vacationStartDay(i);
+            for (int day = 0; day < vacationLength(i); day++) {
+                Vacation vacation = new Vacation();
+                vacation.id = vacationId(i, day);
+                vacation.date = start == DateKeys.NONE ? "" : DateKeys.format(start + day);
+                vacation.type = vacationType(i);
+                vacation.employeeName = vacationEmployeeName(i);
+                vacations.add(vacation);
+            }
+        }
+        return vacations;
+    }
+
+    List<Recurring> toRecurring() {
+        RecurrenceEngine engine = recurrence();
+        List<Recurring> rules = new ArrayList<>(engine.count);
+        for (int r = 0; r < engine.count; r++) {
+            Recurring rule = new Recurring();
+            rule.id = engine.id(r);
+            rule.title = engine.title(r);
+            rule.priority = engine.priorityName(r);
+            rule.kind = engine.kind[r];
+            rule.weekday = engine.weekday[r];
+            rule.ordinal = engine.ordinal[r];
+            rule.holidayShift = engine.holidayShift[r];
+            rule.startDate = DateKeys.format(engine.startDay[r]);
+            rule.endDate = DateKeys.format(engine.endDay[r]);
+            rules.add(rule);
+        }
+        return rules;
+    }
+
+    /**
+     * 스냅샷 파일을 읽기 전용으로 매핑
+     * 파일이 없으면 예전 SharedPreferences 문자열(todo_list_data)을 한 번 변환한다.
+     * 저널에 부분 변경이 남아 있으면 재생한 결과를 돌려준다.
+     */
+    static WidgetSnapshot load(Context context) {
+        File file = snapshotFile(context);
+        if (!file.exists()) {
+            migrateLegacyPrefs(context);
+        }
+        WidgetSnapshot snapshot = EMPTY;
+        if (file.exists()) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                 FileChannel channel = raf.getChannel()) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                snapshot = fromBuffer(mapped);
+            } catch (IOException e) {
+                android.util.Log.e("WidgetSnapshot", "Failed to map snapshot: " + e.getMessage());
+            }
+        }
+        return WidgetStore.replayJournal(context, snapshot);
+    }
+
+    static WidgetSnapshot fromBuffer(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getShort(4) != FORMAT_VERSION) {
+            android.util.Log.w("WidgetSnapshot", "Unsupported snapshot file, ignoring");
+            return EMPTY;
+        }
+        int taskCount = buffer.getInt(8);
+        int vacationRangeCount = buffer.getInt(12);
+        int stringCount = buffer.getInt(16);
+        int taskOffset = buffer.getInt(20);
+        int vacationOffset = buffer.getInt(24);
+        int poolOffset = buffer.getInt(28);
+        int employeeCount = buffer.getInt(40);
+        int typeCount = buffer.getInt(44);
+        int recurringCount = buffer.getInt(48);
+        int recurringOffset = buffer.getInt(52);
+
+        // 섹션마다 (오프셋, 길이) 가 버퍼 안에 들어가는지 확인 (잘린 파일/깨진 헤더면 빈 스냅샷)
+        long limit = buffer.limit();
+        long dictionaryOffset = (long) vacationOffset + (long) vacationRangeCount * VACATION_RECORD_SIZE;
+        long vacationIdOffset = dictionaryOffset + ((long) employeeCount + typeCount) * 4;
+        boolean valid = fits(taskOffset, taskCount, TASK_RECORD_SIZE, limit)
+            && fits(vacationOffset, vacationRangeCount, VACATION_RECORD_SIZE, limit)
+            && employeeCount >= 0 && typeCount >= 0 && employeeCount <= Short.MAX_VALUE && typeCount <= Short.MAX_VALUE
+            && vacationIdOffset <= recurringOffset && (recurringOffset - vacationIdOffset) % 4 == 0
+            && fits(recurringOffset, recurringCount, RECURRING_RECORD_SIZE, limit)
+            && stringCount >= 0 && fits(poolOffset, stringCount + 1L, 4, limit);
+        if (valid) {
+            // 문자열 풀 데이터 끝 = 마지막 오프셋
+            long poolEnd = poolOffset + (stringCount + 1L) * 4 + buffer.getInt(poolOffset + stringCount * 4);
+            valid = poolEnd <= limit && buffer.getInt(poolOffset) >= 0;
+        }
+        if (!valid) {
+            android.util.Log.w("WidgetSnapshot", "Snapshot sections out of bounds (" + limit + " bytes), ignoring");
+            return EMPTY;
+        }
+        return new WidgetSnapshot(buffer, buffer.getLong(32),
+            taskCount, vacationRangeCount, stringCount,
+            taskOffset, vacationOffset, poolOffset,
+            employeeCount, typeCount,
+            recurringCount, recurringOffset);
+    }
+
+    // offset 부터 size 바이트짜리 레코드 count 개가 헤더 뒤, limit 안에 들어가는지
+    private static boolean fits(long offset, long count, int size, long limit) {
+        return offset >= HEADER_SIZE && count >= 0 && offset + count * size <= limit;
+    }
+
+    // ===== 쓰기 =====
+
+    /**
+     * 스냅샷 파일 기록 (임시 파일에 쓴 뒤 rename, 읽는 쪽은 항상 완성된 파일만 본다)
+     * @return 기록한 바이트로 만든 스냅샷 (다시 매핑하지 않고 바로 게시할 수 있다)
+     */
+    static WidgetSnapshot write(Context context, List<Task> tasks, List<Vacation> vacations, List<Recurring> rules,
+                                long dataVersion) throws IOException {
+        ByteBuffer out = encode(tasks, vacations, rules, dataVersion);
+        File file = snapshotFile(context);
+        File tmp = new File(file.getParentFile(), FILE_NAME + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp)) {
+            fos.write(out.array());
+            fos.getFD().sync();
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Failed to replace " + file);
+        }
+        android.util.Log.d("WidgetSnapshot", "Wrote snapshot v" + dataVersion + ": " + tasks.size() + " tasks, "
+            + vacations.size() + " vacations, " + rules.size() + " recurring, " + out.capacity() + " bytes");
+        return fromBuffer(out);
+    }
+
+    // 편집 모델을 스냅샷 바이트로 인코딩 (파일 기록과 메모리 내 재구성에 공용)
+    static ByteBuffer encode(List<Task> tasks, List<Vacation> vacations, List<Recurring> rules, long dataVersion) {
+        Map<String, Integer> poolIndex = new HashMap<>();
+        List<byte[]> pool = new ArrayList<>();
+        int poolBytes = 0;
+
+        int[][] taskRefs = new int[tasks.size()][];
+        for (int i = 0; i < tasks.size(); i++) {
+            Task t = tasks.get(i);
+            taskRefs[i] = new int[] {
+                intern(t.id, poolIndex, pool), intern(t.title, poolIndex, pool),
+                DateKeys.parse(t.startDate), DateKeys.parse(t.dueDate), DateKeys.parse(t.completedAt)
+            };
+        }
+        // 직원 이름/휴가 유형 사전 (등장 순서대로 코드 부여)
+        Map<String, Integer> employeeCodes = new HashMap<>();
+        Map<String, Integer> typeCodes = new HashMap<>();
+        List<String> employees = new ArrayList<>();
+        List<String> types = new ArrayList<>();
+        int[][] vacationRefs = new int[vacations.size()][];
+        for (int i = 0; i < vacations.size(); i++) {
+            Vacation v = vacations.get(i);
+            vacationRefs[i] = new int[] {
+                intern(v.id, poolIndex, pool), DateKeys.parse(v.date),
+                dictionaryCode(v.employeeName, employeeCodes, employees),
+                dictionaryCode(v.type, typeCodes, types), i
+            };
+        }
+        List<int[]> ranges = collapseVacations(vacationRefs);
+        int[][] ruleRefs = new int[rules.size()][];
+        for (int i = 0; i < rules.size(); i++) {
+            Recurring rule = rules.get(i);
+            ruleRefs[i] = new int[] {
+                intern(rule.id, poolIndex, pool), intern(rule.title, poolIndex, pool),
+                DateKeys.parse(rule.startDate), DateKeys.parse(rule.endDate)
+            };
+        }
+        int[] dictionaryRefs = new int[employees.size() + types.size()];
+        for (int i = 0; i < employees.size(); i++) {
+            dictionaryRefs[i] = intern(employees.get(i), poolIndex, pool);
+        }
+        for (int i = 0; i < types.size(); i++) {
+            dictionaryRefs[employees.size() + i] = intern(types.get(i), poolIndex, pool);
+        }
+        for (byte[] bytes : pool) poolBytes += bytes.length;
+
+        int taskOffset = HEADER_SIZE;
+        int vacationOffset = taskOffset + tasks.size() * TASK_RECORD_SIZE;
+        int dictionaryOffset = vacationOffset + ranges.size() * VACATION_RECORD_SIZE;
+        int vacationIdOffset = dictionaryOffset + dictionaryRefs.length * 4;
+        int recurringOffset = vacationIdOffset + vacations.size() * 4;
+        int poolOffset = recurringOffset + rules.size() * RECURRING_RECORD_SIZE;
+        int totalSize = poolOffset + (pool.size() + 1) * 4 + poolBytes;
+
+        ByteBuffer out = ByteBuffer.allocate(totalSize).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putShort(FORMAT_VERSION).putShort((short) 0);
+        out.putInt(tasks.size()).putInt(ranges.size()).putInt(pool.size());
+        out.putInt(taskOffset).putInt(vacationOffset).putInt(poolOffset);
+        out.putLong(dataVersion);
+        out.putInt(employees.size()).putInt(types.size());
+        out.putInt(rules.size()).putInt(recurringOffset);
+
+        for (int i = 0; i < tasks.size(); i++) {
+            Task t = tasks.get(i);
+            for (int ref : taskRefs[i]) out.putInt(ref);
+            int flags = (t.completed ? TaskTable.FLAG_COMPLETED : 0) | (t.isVacation ? TaskTable.FLAG_VACATION : 0);
+            out.put(priorityCode(t.priority)).put((byte) flags).putShort((short) 0);
+        }
+        int firstId = 0;
+        for (int[] range : ranges) {
+            int[] head = vacationRefs[range[0]];
+            int start = head[1];
+            int end = start == DateKeys.NONE ? DateKeys.NONE : start + range[1] - 1;
+            out.putInt(start).putInt(end).putShort((short) head[2]).putShort((short) head[3]).putInt(firstId);
+            firstId += range[1];
+        }
+        for (int ref : dictionaryRefs) out.putInt(ref);
+        for (int[] range : ranges) {
+            for (int k = 0; k < range[1]; k++) out.putInt(vacationRefs[range[0] + k][0]);
+        }
+        for (int i = 0; i < rules.size(); i++) {
+            Recurring rule = rules.get(i);
+            for (int ref : ruleRefs[i]) out.putInt(ref);
+            out.put(rule.kind).put(priorityCode(rule.priority)).put((byte) rule.weekday).put((byte) rule.ordinal);
+            out.put((byte) rule.holidayShift).put((byte) 0).putShort((short) 0);
+        }
+        int offset = 0;
+        for (byte[] bytes : pool) {
+            out.putInt(offset);
+            offset += bytes.length;
+        }
+        out.putInt(offset);
+        for (byte[] bytes : pool) out.put(bytes);
+        out.flip();
+        return out;
+    }
+
+    /**
+     * 같은 (직원, 유형) 의 연속된 날짜를 하나의 구간으로 합친다.
+     * vacationRefs 를 (직원, 유형, 날짜, 입력 순서) 로 정렬하고 {첫 행 위치, 날짜 수} 목록을 돌려준다.
+     * 구간 순서는 구간 첫 행의 입력 순서를 따른다 (같은 날짜 안의 표시 순서 유지).
+     * 날짜가 없거나 같은 날짜가 겹치는 행은 합치지 않는다.
+     */
+    private static List<int[]> collapseVacations(int[][] vacationRefs) {
+        Arrays.sort(vacationRefs, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] a, int[] b) {
+                if (a[2] != b[2]) return Integer.compare(a[2], b[2]);
+                if (a[3] != b[3]) return Integer.compare(a[3], b[3]);
+                if (a[1] != b[1]) return Integer.compare(a[1], b[1]);
+                return Integer.compare(a[4], b[4]);
+            }
+        });
+
+        List<int[]> ranges = new ArrayList<>();
+        int[] current = null;
+        for (int i = 0; i < vacationRefs.length; i++) {
+            int[] row = vacationRefs[i];
+            if (current != null) {
+                int[] prev = vacationRefs[i - 1];
+                boolean sameGroup = prev[2] == row[2] && prev[3] == row[3];
+                if (sameGroup && prev[1] != DateKeys.NONE && row[1] == prev[1] + 1) {
+                    current[1]++;
+                    continue;
+                }
+            }
+            current = new int[] {i, 1};
+            ranges.add(current);
+        }
+
+        Collections.sort(ranges, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] a, int[] b) {
+                return Integer.compare(vacationRefs[a[0]][4], vacationRefs[b[0]][4]);
+            }
+        });
+        return ranges;
+    }
+
+    private static int intern(String value, Map<String, Integer> poolIndex, List<byte[]> pool) {
+        if (value == null || value.isEmpty()) return NO_STRING;
+        Integer index = poolIndex.get(value);
+        if (index == null) {
+            index = pool.size();
+            poolIndex.put(value, index);
+            pool.add(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return index;
+    }
+
+    private static int dictionaryCode(String value, Map<String, Integer> codes, List<String> entries) {
+        String key = value == null ? "" : value;
+        Integer code = codes.get(key);
+        if (code == null) {
+            if (entries.size() > Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many dictionary entries");
+            }
+            code = entries.size();
+            codes.put(key, code);
+            entries.add(key);
+        }
+        return code;
+    }
+
+    static byte priorityCode(String priority) {
+        if (priority == null) return PRIORITY_MEDIUM;
+        switch (priority) {
+            case "urgent": return PRIORITY_URGENT;
+            case "high": return PRIORITY_HIGH;
+            case "low": return PRIORITY_LOW;
+            default: return PRIORITY_MEDIUM;
+        }
+    }
+
+    static String priorityName(byte code) {
+        return code >= 0 && code < PRIORITY_NAMES.length ? PRIORITY_NAMES[code] : "medium";
+    }
+
+    // ===== JSON 변환 =====
+
+    /**
+     * combined JSON 문자열 ({calendar, vacations, today}) 을 JsonReader 로 스트리밍 파싱
+     * 위젯이 쓰는 필드만 꺼내고 나머지(today 섹션, description 등)는 트리를 만들지 않고 건너뛴다.
+     */
+    static void parseCombinedJson(String json, List<Task> tasks, List<Vacation> vacations) throws IOException {
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                readTasks(reader, tasks);
+                return;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("calendar") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    readTasks(reader, tasks);
+                } else if (name.equals("vacations") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    readVacations(reader, vacations);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Malformed widget data: " + e.getMessage());
+        }
+    }
+
+    private static void readTasks(JsonReader reader, List<Task> tasks) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Task task = new Task();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "id": task.id = nextString(reader, ""); break;
+                    case "title": task.title = nextString(reader, ""); break;
+                    case "priority": task.priority = nextString(reader, "medium"); break;
+                    case "completed": task.completed = nextBoolean(reader); break;
+                    case "isVacation": task.isVacation = nextBoolean(reader); break;
+                    case "startDate": task.startDate = extractDateKey(nextString(reader, "")); break;
+                    case "dueDate": task.dueDate = extractDateKey(nextString(reader, "")); break;
+                    case "completedAt": task.completedAt = extractDateKey(nextString(reader, "")); break;
+                    default: reader.skipValue(); break;
+                }
+            }
+            reader.endObject();
+            if (task.id.isEmpty()) task.id = "task_" + tasks.size();
+            tasks.add(task);
+        }
+        reader.endArray();
+    }
+
+    private static void readVacations(JsonReader reader, List<Vacation> vacations) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Vacation vacation = new Vacation();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "id": vacation.id = nextString(reader, ""); break;
+                    case "date": vacation.date = nextString(reader, ""); break;
+                    case "type": vacation.type = nextString(reader, "휴가"); break;
+                    case "employeeName": vacation.employeeName = nextString(reader, ""); break;
+                    default: reader.skipValue(); break;
+                }
+            }
+            reader.endObject();
+            vacations.add(vacation);
+        }
+        reader.endArray();
+    }
+
+    // org.json optString 과 같은 규칙: null 이면 기본값, 숫자/불리언은 문자열로
+    private static String nextString(JsonReader reader, String fallback) throws IOException {
+        switch (reader.peek()) {
+            case NULL:
+                reader.nextNull();
+                return fallback;
+            case BOOLEAN:
+                return String.valueOf(reader.nextBoolean());
+            case STRING:
+            case NUMBER:
+                return reader.nextString();
+            default:
+                reader.skipValue();
+                return fallback;
+        }
+    }
+
+    private static boolean nextBoolean(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case STRING:
+                return "true".equalsIgnoreCase(reader.nextString());
+            default:
+                reader.skipValue();
+                return false;
+        }
+    }
+
+    // 브릿지에서 바로 받은 배열(JSArray) 또는 파싱된 배열을 편집 모델로 변환
+    static void fromJsonArrays(JSONArray calendarArray, JSONArray vacationArray,
+                               List<Task> tasks, List<Vacation> vacations) throws org.json.JSONException {
+        if (calendarArray != null) {
+            for (int i = 0; i < calendarArray.length(); i++) {
+                Task task = taskFromJson(calendarArray.getJSONObject(i));
+                if (task.id.isEmpty()) task.id = "task_" + i;
+                tasks.add(task);
+            }
+        }
+        if (vacationArray != null) {
+            for (int i = 0; i < vacationArray.length(); i++) {
+                vacations.add(vacationFromJson(vacationArray.getJSONObject(i)));
+            }
+        }
+    }
+
+    static void recurringFromJsonArray(JSONArray templateArray, List<Recurring> rules) throws org.json.JSONException {
+        if (templateArray == null) return;
+        for (int i = 0; i < templateArray.length(); i++) {
+            Recurring rule = recurringFromJson(templateArray.getJSONObject(i));
+            if (rule != null) rules.add(rule);
+        }
+    }
+
+    static Task taskFromJson(JSONObject todo) {
+        Task task = new Task();
+        task.id = todo.optString("id", "");
+        task.title = todo.optString("title", "");
+        task.priority = todo.optString("priority", "medium");
+        task.completed = todo.optBoolean("completed", false);
+        task.isVacation = todo.optBoolean("isVacation", false);
+        task.startDate = extractDateKey(todo.optString("startDate", ""));
+        task.dueDate = extractDateKey(todo.optString("dueDate", ""));
+        task.completedAt = extractDateKey(todo.optString("completedAt", ""));
+        return task;
+    }
+
+    /**
+     * 반복 템플릿 → 반복 규칙 (전개할 수 없는 규칙이나 비활성 템플릿은 null)
+     * RecurringTemplate(recurrence, recurrenceDay, recurrenceDate) 과
+     * SimpleRecurringTemplate(recurrenceType, weekday, monthlyDate) 필드 이름을 모두 받는다.
+     */
+    static Recurring recurringFromJson(JSONObject t) {
+        if (!t.optBoolean("isActive", true)) return null;
+        Recurring rule = new Recurring();
+        rule.id = t.optString("id", "");
+        rule.title = t.optString("title", "");
+        rule.priority = t.optString("priority", "medium");
+        rule.startDate = extractDateKey(t.optString("startDate", ""));
+        rule.endDate = extractDateKey(t.optString("endDate", ""));
+        String holidayHandling = t.optString("holidayHandling", "show");
+        rule.holidayShift = "before".equals(holidayHandling) ? -1 : "after".equals(holidayHandling) ? 1 : 0;
+        String type = t.optString("recurrence", t.optString("recurrenceType", ""));
+        switch (type) {
+            case "daily":
+                rule.kind = RecurrenceEngine.DAILY;
+                break;
+            case "weekly":
+                rule.kind = RecurrenceEngine.WEEKLY;
+                rule.weekday = t.optInt("recurrenceDay", t.optInt("weekday", -1));
+                if (rule.weekday < 0 || rule.weekday > 6) return null;
+                break;
+            case "monthly": {
+                // 요일 패턴 설정이 빠져 있으면 JS 와 같이 날짜 패턴으로 처리
+                int nth = monthlyWeekOrdinal(t.optString("monthlyWeek", ""));
+                int weekday = t.optInt("monthlyWeekday", -1);
+                if ("weekday".equals(t.optString("monthlyPattern", "date")) && nth != 0 && weekday >= 0 && weekday <= 6) {
+                    rule.kind = RecurrenceEngine.MONTHLY_WEEKDAY;
+                    rule.weekday = weekday;
+                    rule.ordinal = nth;
+                } else {
+                    rule.kind = RecurrenceEngine.MONTHLY_DATE;
+                    rule.ordinal = t.optInt("recurrenceDate", t.optInt("monthlyDate", 1));
+                    if (rule.ordinal < RecurrenceEngine.LAST_WORKDAY || rule.ordinal > 31) return null;
+                }
+                break;
+            }
+            default:
+                return null;
+        }
+        if (rule.id.isEmpty()) return null;
+        rule.holidayShift = RecurrenceEngine.holidayShift(rule.kind, rule.ordinal, rule.holidayShift);
+        return rule;
+    }
+
+    private static int monthlyWeekOrdinal(String week) {
+        switch (week) {
+            case "first": return 1;
+            case "second": return 2;
+            case "third": return 3;
+            case "fourth": return 4;
+            case "last": return RecurrenceEngine.LAST_DAY;
+            default: return 0;
+        }
+    }
+
+    static Vacation vacationFromJson(JSONObject v) {
+        Vacation vacation = new Vacation();
+        vacation.id = v.optString("id", "");
+        vacation.date = v.optString("date", "");
+        vacation.type = v.optString("type", "휴가");
+        vacation.employeeName = v.optString("employeeName", "");
+        return vacation;
+    }
+
+    // ISO 문자열 → 기기 시간대 기준 날짜 키 (UTC 'Z' 시각이 하루 밀리지 않도록 DateKeys.parseIso 사용)
+    static String extractDateKey(String isoDate) {
+        return DateKeys.format(DateKeys.parseIso(isoDate));
+    }
+
+    // 예전 버전이 SharedPreferences에 남긴 JSON 문자열을 스냅샷으로 옮기고 삭제
+    private static void migrateLegacyPrefs(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String legacy = prefs.getString(LEGACY_DATA_KEY, null);
+        if (legacy == null || legacy.isEmpty()) return;
+        try {
+            List<Task> tasks = new ArrayList<>();
+            List<Vacation> vacations = new ArrayList<>();
+            parseCombinedJson(legacy, tasks, vacations);
+            write(context, tasks, vacations, new ArrayList<Recurring>(), 1);
+            prefs.edit().remove(LEGACY_DATA_KEY).apply();
+            android.util.Log.d("WidgetSnapshot", "Migrated legacy prefs data to snapshot");
+        } catch (Exception e) {
+            android.util.Log.e("WidgetSnapshot", "Legacy migration failed: " + e.getMessage());
+        }
+    }
+
+    static File snapshotFile(Context context) {
+        return new File(context.getFilesDir(), FILE_NAME);
+    }
+}
@@ -0,0 +1,436 @@
+package com.anzpek.todolist;
+
+import android.content.Context;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 위젯 데이터 편집 저장소 (쓰기 전용 경로)
+ *
+ * 플러그인의 upsert/delete 와 위젯 체크박스 토글이 모두 여기를 거친다.
+ * 호출한 스레드에서는 메모리 모델만 바꾸고 저널 레코드를 만들어 쌓아 두기만 한다 (디스크 I/O 없음).
+ * 실제 기록은 WidgetIngestQueue 가 디바운스 뒤에 flush() 로 한 번에 한다:
+ * 쌓인 변경분은 스냅샷을 다시 쓰지 않고 저널(files/widget_snapshot.journal)에 덧붙이고,
+ * 전체 교체가 있었거나 저널이 일정 크기를 넘으면 스냅샷으로 합친 뒤 저널을 비운다.
+ * 반복 규칙은 전체 교체로만 바뀌므로 저널에 기록하지 않는다 (스냅샷에 있는 규칙을 그대로 이어 쓴다).
+ *
+ * flush 가 끝나면 새 상태로 만든 불변 스냅샷을 WidgetDataRepository.publish() 로 한 번에 교체한다
+ * (편집마다가 아니라 flush 마다 한 번). 읽는 쪽은 이 객체의 락을 잡지 않으므로 편집/기록 중에도 기다리지 않는다.
+ * 할일 변경만 저널에 덧붙인 flush 는 전체를 다시 인코딩하지 않고 직전 스냅샷에 할일 테이블만 바꿔 게시한다
+ * (WidgetSnapshot.withTasks). 휴가 변경은 어차피 휴가 섹션을 다시 만들어야 하므로 바로 스냅샷으로 합친다.
+ *
+ * 저널 레코드: [int 길이][op, 데이터 버전, 항목 수, 항목들][int CRC32]
+ * 잘리거나 CRC가 맞지 않는 레코드부터는 무시한다 (기록 도중 프로세스가 죽은 경우).
+ */
+final class WidgetStore {
+
+    private static final String JOURNAL_NAME = "widget_snapshot.journal";
+    private static final int COMPACT_RECORD_LIMIT = 64;
+
+    private static final byte OP_UPSERT_TASKS = 1;
+    private static final byte OP_DELETE_TASKS = 2;
+    private static final byte OP_UPSERT_VACATIONS = 3;
+    private static final byte OP_DELETE_VACATIONS = 4;
+
+    // baseVersion 이 현재 버전과 다를 때 반환 (JS는 전체 updateWidget 으로 다시 보낸다)
+    static final long VERSION_MISMATCH = -1;
+
+    private static WidgetStore instance;
+
+    private final Context context;
+    private final LinkedHashMap<String, WidgetSnapshot.Task> tasks = new LinkedHashMap<>();
+    private final LinkedHashMap<String, WidgetSnapshot.Vacation> vacations = new LinkedHashMap<>();
+    private final List<WidgetSnapshot.Recurring> recurring = new ArrayList<>();
+    private long version;
+    private int journalRecords;
+    // replaceAll 이후 아직 스냅샷에 기록되지 않은 상태
+    private boolean dirty;
+    // 아직 저널에 덧붙이지 않은 레코드 (flush 에서 한 번에 기록)
+    private final List<byte[]> staged = new ArrayList<>();
+    // staged 에 휴가 레코드가 있는지 (있으면 flush 에서 스냅샷으로 합친다)
+    private boolean stagedVacations;
+    // 이 저장소가 마지막으로 게시한 스냅샷 (flush 스레드에서만 바꾼다, 저널 flush 의 기준)
+    private WidgetSnapshot published;
+
+    private WidgetStore(Context context) {
+        this.context = context;
+        WidgetSnapshot snapshot = WidgetSnapshot.load(context);
+        for (WidgetSnapshot.Task task : snapshot.toTasks()) tasks.put(task.id, task);
+        for (WidgetSnapshot.Vacation vacation : snapshot.toVacations()) vacations.put(vacationKey(vacation), vacation);
+        recurring.addAll(snapshot.toRecurring());
+        version = snapshot.dataVersion();
+        published = snapshot;
+        journalRecords = countJournalRecords(journalFile(context));
+    }
+
+    static synchronized WidgetStore get(Context context) {
+        if (instance == null) {
+            instance = new WidgetStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    synchronized long version() {
+        return version;
+    }
+
+    /**
+     * 전체 교체 (updateWidget): 메모리 모델만 바꾸고 버전을 올린다
+     * 스냅샷 기록은 flush() 에서 (ingest 큐가 연속 호출을 모아서 한 번만 기록)
+     * @return 새 데이터 버전
+     */
+    synchronized long replaceAll(List<WidgetSnapshot.Task> newTasks, List<WidgetSnapshot.Vacation> newVacations,
+                                 List<WidgetSnapshot.Recurring> newRecurring) {
+        tasks.clear();
+        vacations.clear();
+        recurring.clear();
+        recurring.addAll(newRecurring);
+        for (WidgetSnapshot.Task task : newTasks) tasks.put(task.id, task);
+        for (WidgetSnapshot.Vacation vacation : newVacations) vacations.put(vacationKey(vacation), vacation);
+        version++;
+        dirty = true;
+        return version;
+    }
+
+    /**
+     * 쌓인 변경을 디스크에 기록하고 새 스냅샷을 게시 (ingest 큐 스레드에서만 호출)
+     * 모델은 락 안에서 복사만 하고 기록은 락 밖에서 하므로, 그동안 들어온 편집은 기다리지 않고 다음 flush 로 넘어간다.
+     */
+    void flush() throws IOException {
+        List<byte[]> records;
+        boolean rewrite;
+        List<WidgetSnapshot.Task> taskList;
+        List<WidgetSnapshot.Vacation> vacationList;
+        List<WidgetSnapshot.Recurring> recurringList;
+        long flushedVersion;
+        synchronized (this) {
+            if (!dirty && staged.isEmpty()) return;
+            // 기록 대기 중인 전체 교체가 있으면 저널만으로는 디스크 상태를 재현할 수 없으므로 스냅샷 기록
+            // 휴가 변경도 게시할 스냅샷을 인코딩해야 하므로 그 김에 디스크에도 기록하고 저널을 비운다
+            rewrite = dirty || stagedVacations || journalRecords + staged.size() > COMPACT_RECORD_LIMIT;
+            records = new ArrayList<>(staged);
+            staged.clear();
+            stagedVacations = false;
+            dirty = false;
+            journalRecords = rewrite ? 0 : journalRecords + records.size();
+            taskList = sortedTasks(tasks);
+            vacationList = new ArrayList<>(vacations.values());
+            recurringList = new ArrayList<>(recurring);
+            flushedVersion = version;
+        }
+
+        try {
+            if (rewrite) {
+                compact(taskList, vacationList, recurringList, flushedVersion);
+            } else {
+                appendJournal(records);
+                android.util.Log.d("WidgetStore", "Journal +" + records.size() + " records -> v" + flushedVersion);
+                // 휴가/반복 규칙은 published 와 같으므로 할일 테이블만 바꿔서 게시
+                published = published.withTasks(taskList, flushedVersion);
+                WidgetDataRepository.publish(published);
+            }
+        } catch (IOException e) {
+            // 이번 변경분이 디스크에 없으므로 다음 flush 에서 스냅샷으로 통째로 기록
+            synchronized (this) {
+                dirty = true;
+            }
+            throw e;
+        }
+    }
+
+    synchronized long upsertTasks(long baseVersion, List<WidgetSnapshot.Task> changed) throws IOException {
+        if (baseVersion != version) return VERSION_MISMATCH;
+        for (WidgetSnapshot.Task task : changed) tasks.put(task.id, task);
+        return stage(OP_UPSERT_TASKS, changed, null, null);
+    }
+
+    synchronized long deleteTasks(long baseVersion, List<String> ids) throws IOException {
+        if (baseVersion != version) return VERSION_MISMATCH;
+        for (String id : ids) tasks.remove(id);
+        return stage(OP_DELETE_TASKS, null, null, ids);
+    }
+
+    synchronized long upsertVacations(long baseVersion, List<WidgetSnapshot.Vacation> changed) throws IOException {
+        if (baseVersion != version) return VERSION_MISMATCH;
+        for (WidgetSnapshot.Vacation vacation : changed) vacations.put(vacationKey(vacation), vacation);
+        return stage(OP_UPSERT_VACATIONS, null, changed, null);
+    }
+
+    synchronized long deleteVacations(long baseVersion, List<String> ids) throws IOException {
+        if (baseVersion != version) return VERSION_MISMATCH;
+        for (String id : ids) vacations.remove(id);
+        return stage(OP_DELETE_VACATIONS, null, null, ids);
+    }
+
+    /**
+     * 위젯 체크박스 토글: 해당 할일 한 건만 저널 레코드로 쌓는다 (호출한 쪽이 ingest 큐에 제출)
+     * @return 변경된 완료 상태, 할일을 찾지 못하면 null
+     */
+    synchronized Boolean toggleTask(String taskId, String todayKey) {
+        WidgetSnapshot.Task current = tasks.get(taskId);
+        if (current == null) return null;
+        // flush 가 락 밖에서 이전 모델을 기록 중일 수 있으므로 바꾸지 않고 새 객체로 교체
+        WidgetSnapshot.Task task = copyTask(current);
+        task.completed = !task.completed;
+        task.completedAt = task.completed ? todayKey : "";
+        tasks.put(taskId, task);
+        List<WidgetSnapshot.Task> changed = new ArrayList<>();
+        changed.add(task);
+        try {
+            stage(OP_UPSERT_TASKS, changed, null, null);
+        } catch (IOException e) {
+            android.util.Log.e("WidgetStore", "Error toggling task: " + e.getMessage());
+        }
+        return task.completed;
+    }
+
+    // 버전을 올리고 저널 레코드를 메모리에 쌓아 둔다 (기록은 flush)
+    private long stage(byte op, List<WidgetSnapshot.Task> changedTasks, List<WidgetSnapshot.Vacation> changedVacations,
+                       List<String> ids) throws IOException {
+        version++;
+        // 전체 교체가 기록 대기 중이면 어차피 스냅샷으로 통째로 기록되므로 레코드는 필요 없다
+        if (dirty) return version;
+        if (op == OP_UPSERT_VACATIONS || op == OP_DELETE_VACATIONS) stagedVacations = true;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(op);
+        out.writeLong(version);
+        if (changedTasks != null) {
+            out.writeInt(changedTasks.size());
+            for (WidgetSnapshot.Task task : changedTasks) writeTask(out, task);
+        } else if (changedVacations != null) {
+            out.writeInt(changedVacations.size());
+            for (WidgetSnapshot.Vacation vacation : changedVacations) writeVacation(out, vacation);
+        } else {
+            out.writeInt(ids.size());
+            for (String id : ids) out.writeUTF(id);
+        }
+        out.flush();
+        staged.add(bytes.toByteArray());
+        return version;
+    }
+
+    // 쌓인 레코드를 저널에 덧붙이고 한 번만 fsync
+    private void appendJournal(List<byte[]> records) throws IOException {
+        try (FileOutputStream fos = new FileOutputStream(journalFile(context), true);
+             DataOutputStream journal = new DataOutputStream(fos)) {
+            for (byte[] record : records) {
+                CRC32 crc = new CRC32();
+                crc.update(record, 0, record.length);
+                journal.writeInt(record.length);
+                journal.write(record);
+                journal.writeInt((int) crc.getValue());
+            }
+            journal.flush();
+            fos.getFD().sync();
+        }
+    }
+
+    // 현재 모델을 스냅샷으로 기록하고 저널 삭제 (스냅샷이 먼저 바뀌므로 중간에 죽어도 재생 시 버전으로 걸러진다)
+    private void compact(List<WidgetSnapshot.Task> taskList, List<WidgetSnapshot.Vacation> vacationList,
+                         List<WidgetSnapshot.Recurring> recurringList, long snapshotVersion) throws IOException {
+        WidgetSnapshot written = WidgetSnapshot.write(context, taskList, vacationList, recurringList, snapshotVersion);
+        published = written;
+        File journal = journalFile(context);
+        if (journal.exists() && !journal.delete()) {
+            android.util.Log.w("WidgetStore", "Failed to delete journal after compaction");
+        }
+        android.util.Log.d("WidgetStore", "Compacted -> v" + snapshotVersion);
+        WidgetDataRepository.publish(written);
+    }
+
+    // ===== 읽기 쪽: 스냅샷 + 저널 재생 =====
+
+    /**
+     * 저널에 스냅샷 이후의 변경이 있으면 적용한 스냅샷을 메모리에서 다시 만든다
+     * 저널이 비어 있으면 매핑된 스냅샷을 그대로 돌려준다.
+     */
+    static WidgetSnapshot replayJournal(Context context, WidgetSnapshot snapshot) {
+        File journal = journalFile(context);
+        if (!journal.exists() || journal.length() == 0) return snapshot;
+
+        LinkedHashMap<String, WidgetSnapshot.Task> taskMap = new LinkedHashMap<>();
+        LinkedHashMap<String, WidgetSnapshot.Vacation> vacationMap = new LinkedHashMap<>();
+        for (WidgetSnapshot.Task task : snapshot.toTasks()) taskMap.put(task.id, task);
+        for (WidgetSnapshot.Vacation vacation : snapshot.toVacations()) vacationMap.put(vacationKey(vacation), vacation);
+
+        long lastVersion = readJournal(journal, snapshot.dataVersion(), taskMap, vacationMap);
+        if (lastVersion == snapshot.dataVersion()) return snapshot;
+
+        ByteBuffer rebuilt = WidgetSnapshot.encode(sortedTasks(taskMap), new ArrayList<>(vacationMap.values()),
+            snapshot.toRecurring(), lastVersion);
+        return WidgetSnapshot.fromBuffer(rebuilt);
+    }
+
+    // 저널 레코드 중 baseVersion 이후 것만 순서대로 적용, 마지막으로 적용된 버전 반환
+    private static long readJournal(File journal, long baseVersion,
+                                    Map<String, WidgetSnapshot.Task> taskMap,
+                                    Map<String, WidgetSnapshot.Vacation> vacationMap) {
+        long lastVersion = baseVersion;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(journal))) {
+            while (true) {
+                byte[] record = readRecord(in);
+                if (record == null) break;
+                DataInputStream r = new DataInputStream(new ByteArrayInputStream(record));
+                byte op = r.readByte();
+                long recordVersion = r.readLong();
+                if (recordVersion <= lastVersion) continue;
+                int count = r.readInt();
+                for (int i = 0; i < count; i++) {
+                    switch (op) {
+                        case OP_UPSERT_TASKS: {
+                            WidgetSnapshot.Task task = readTask(r);
+                            taskMap.put(task.id, task);
+                            break;
+                        }
+                        case OP_DELETE_TASKS:
+                            taskMap.remove(r.readUTF());
+                            break;
+                        case OP_UPSERT_VACATIONS: {
+                            WidgetSnapshot.Vacation vacation = readVacation(r);
+                            vacationMap.put(vacationKey(vacation), vacation);
+                            break;
+                        }
+                        case OP_DELETE_VACATIONS:
+                            vacationMap.remove(r.readUTF());
+                            break;
+                        default:
+                            throw new IOException("Unknown journal op " + op);
+                    }
+                }
+                lastVersion = recordVersion;
+            }
+        } catch (IOException e) {
+            android.util.Log.e("WidgetStore", "Journal replay stopped: " + e.getMessage());
+        }
+        return lastVersion;
+    }
+
+    // 레코드 하나 읽기, 끝이거나 손상되었으면 null
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length <= 0 || length > (1 << 24)) return null;
+        byte[] record = new byte[length];
+        try {
+            in.readFully(record);
+            int expected = in.readInt();
+            CRC32 crc = new CRC32();
+            crc.update(record, 0, record.length);
+            if ((int) crc.getValue() != expected) {
+                android.util.Log.w("WidgetStore", "Journal CRC mismatch, ignoring tail");
+                return null;
+            }
+        } catch (EOFException e) {
+            android.util.Log.w("WidgetStore", "Truncated journal record, ignoring tail");
+            return null;
+        }
+        return record;
+    }
+
+    private static int countJournalRecords(File journal) {
+        if (!journal.exists()) return 0;
+        int count = 0;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(journal))) {
+            while (readRecord(in) != null) count++;
+        } catch (IOException e) {
+            android.util.Log.e("WidgetStore", "Failed to scan journal: " + e.getMessage());
+        }
+        return count;
+    }
+
+    private static void writeTask(DataOutputStream out, WidgetSnapshot.Task task) throws IOException {
+        out.writeUTF(task.id);
+        out.writeUTF(task.title);
+        out.writeByte(WidgetSnapshot.priorityCode(task.priority));
+        out.writeBoolean(task.completed);
+        out.writeBoolean(task.isVacation);
+        out.writeUTF(task.startDate);
+        out.writeUTF(task.dueDate);
+        out.writeUTF(task.completedAt);
+    }
+
+    private static WidgetSnapshot.Task readTask(DataInputStream in) throws IOException {
+        WidgetSnapshot.Task task = new WidgetSnapshot.Task();
+        task.id = in.readUTF();
+        task.title = in.readUTF();
+        task.priority = WidgetSnapshot.priorityName(in.readByte());
+        task.completed = in.readBoolean();
+        task.isVacation = in.readBoolean();
+        task.startDate = in.readUTF();
+        task.dueDate = in.readUTF();
+        task.completedAt = in.readUTF();
+        return task;
+    }
+
+    private static WidgetSnapshot.Task copyTask(WidgetSnapshot.Task source) {
+        WidgetSnapshot.Task task = new WidgetSnapshot.Task();
+        task.id = source.id;
+        task.title = source.title;
+        task.priority = source.priority;
+        task.completed = source.completed;
+        task.isVacation = source.isVacation;
+        task.startDate = source.startDate;
+        task.dueDate = source.dueDate;
+        task.completedAt = source.completedAt;
+        return task;
+    }
+
+    private static void writeVacation(DataOutputStream out, WidgetSnapshot.Vacation vacation) throws IOException {
+        out.writeUTF(vacation.id);
+        out.writeUTF(vacation.date);
+        out.writeUTF(vacation.type);
+        out.writeUTF(vacation.employeeName);
+    }
+
+    private static WidgetSnapshot.Vacation readVacation(DataInputStream in) throws IOException {
+        WidgetSnapshot.Vacation vacation = new WidgetSnapshot.Vacation();
+        vacation.id = in.readUTF();
+        vacation.date = in.readUTF();
+        vacation.type = in.readUTF();
+        vacation.employeeName = in.readUTF();
+        return vacation;
+    }
+
+    // id 가 없는 예전 휴가 데이터는 날짜+이름+유형으로 구분
+    private static String vacationKey(WidgetSnapshot.Vacation vacation) {
+        if (!vacation.id.isEmpty()) return vacation.id;
+        return vacation.date + "|" + vacation.employeeName + "|" + vacation.type;
+    }
+
+    // 새로 추가된 할일이 뒤에 붙어도 위젯 표시 순서가 JS 정렬(우선순위)과 같도록 안정 정렬
+    private static List<WidgetSnapshot.Task> sortedTasks(Map<String, WidgetSnapshot.Task> taskMap) {
+        List<WidgetSnapshot.Task> list = new ArrayList<>(taskMap.values());
+        Collections.sort(list, new Comparator<WidgetSnapshot.Task>() {
+            @Override
+            public int compare(WidgetSnapshot.Task a, WidgetSnapshot.Task b) {
+                return WidgetSnapshot.priorityCode(a.priority) - WidgetSnapshot.priorityCode(b.priority);
+            }
+        });
+        return list;
+    }
+
+    private static File journalFile(Context context) {
+        return new File(context.getFilesDir(), JOURNAL_NAME);
+    }
+}
@@ -0,0 +1,199 @@
+package com.anzpek.todolist;
+
+import android.app.PendingIntent;
+import android.appwidget.AppWidgetManager;
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.Bitmap;
+import android.widget.RemoteViews;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 위젯 화면 모델 + 부분 업데이트
+ *
+ * RemoteViews 에 바로 쓰지 않고 (뷰 id, 속성) → 값 을 기록해 두었다가,
+ * 같은 위젯 id 에 마지막으로 보낸 모델과 비교해서 바뀐 값만 partiallyUpdateAppWidget 으로 보낸다.
+ * 날짜 선택처럼 두 칸만 바뀌는 탭은 두 칸 분량의 액션만 보내게 된다.
+ *
+ * 전체 업데이트(updateAppWidget)는
+ * - 이 프로세스에서 그 위젯에 처음 그릴 때 (프로세스 재시작 포함)
+ * - 레이아웃이 바뀌었을 때
+ * - forget() 으로 지운 뒤 (시스템 onUpdate, 위젯 삭제)
+ * 에만 한다. 컬렉션 어댑터처럼 비교할 수 없는 설정은 full() 에 직접 넣어 두면 전체 업데이트 때만 나간다.
+ *
+ * 클릭 PendingIntent 도 요청 코드 + Intent 내용이 바뀐 칸만 다시 만든다.
+ */
+final class WidgetViews {
+
+    private static final int TEXT = 1;
+    private static final int TEXT_COLOR = 2;
+    private static final int BACKGROUND = 3;
+    private static final int VISIBILITY = 4;
+    private static final int CLICK = 5;
+    private static final int IMAGE = 6;
+
+    private static final int CLICK_FLAGS = PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE;
+
+    // 위젯 id → 마지막으로 보낸 모델
+    private static final HashMap<Integer, WidgetViews> pushed = new HashMap<>();
+
+    private final Context context;
+    private final int layoutId;
+    private final LinkedHashMap<Long, Object> values = new LinkedHashMap<>();
+    private RemoteViews full;
+
+    WidgetViews(Context context, int layoutId) {
+        this.context = context;
+        this.layoutId = layoutId;
+    }
+
+    // 클릭 대상 (비교는 key 로, PendingIntent 는 보낼 때만 만든다)
+    private static final class Click {
+        final int requestCode;
+        final Intent intent;
+        final boolean activity;
+        final int flags;
+        final String key;
+
+        Click(int requestCode, Intent intent, boolean activity, int flags) {
+            this.requestCode = requestCode;
+            this.intent = intent;
+            this.activity = activity;
+            this.flags = flags;
+            this.key = requestCode + (activity ? "A" : "B") + flags + intent.toUri(0);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Click && key.equals(((Click) other).key);
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode();
+        }
+    }
+
+    void setTextViewText(int viewId, CharSequence text) {
+        // 비교는 문자열로 (스팬은 쓰지 않는다)
+        put(viewId, TEXT, text == null ? "" : text.toString());
+    }
+
+    void setTextColor(int viewId, int color) { put(viewId, TEXT_COLOR, color); }
+
+    void setBackgroundResource(int viewId, int resId) { put(viewId, BACKGROUND, resId); }
+
+    void setViewVisibility(int viewId, int visibility) { put(viewId, VISIBILITY, visibility); }
+
+    // 비교는 인스턴스로 (캐시된 비트맵을 그대로 다시 넣으면 보내지 않는다)
+    void setImageViewBitmap(int viewId, Bitmap bitmap) { put(viewId, IMAGE, bitmap); }
+
+    void setOnClickBroadcast(int viewId, int requestCode, Intent intent) {
+        put(viewId, CLICK, new Click(requestCode, intent, false, CLICK_FLAGS));
+    }
+
+    void setOnClickActivity(int viewId, int requestCode, Intent intent) {
+        setOnClickActivity(viewId, requestCode, intent, CLICK_FLAGS);
+    }
+
+    void setOnClickActivity(int viewId, int requestCode, Intent intent, int flags) {
+        put(viewId, CLICK, new Click(requestCode, intent, true, flags));
+    }
+
+    /**
+     * 전체 업데이트에만 들어가는 RemoteViews (setRemoteAdapter, setPendingIntentTemplate 등)
+     */
+    RemoteViews full() {
+        if (full == null) full = new RemoteViews(context.getPackageName(), layoutId);
+        return full;
+    }
+
+    /**
+     * 마지막으로 보낸 모델과 비교해서 전체 또는 바뀐 값만 보낸다
+     * @return 전체 업데이트를 했으면 true
+     */
+    boolean push(AppWidgetManager manager, int appWidgetId) {
+        WidgetViews last;
+        synchronized (pushed) {
+            last = pushed.get(appWidgetId);
+        }
+
+        if (last == null || last.layoutId != layoutId) {
+            RemoteViews views = full();
+            for (Map.Entry<Long, Object> entry : values.entrySet()) apply(views, entry.getKey(), entry.getValue());
+            manager.updateAppWidget(appWidgetId, views);
+            synchronized (pushed) {
+                pushed.put(appWidgetId, this);
+            }
+            return true;
+        }
+
+        // 이번에 기록하지 않은 값은 이전 상태 그대로 둔다 (렌더링 중 예외가 나도 남은 칸은 유지)
+        RemoteViews diff = null;
+        int changed = 0;
+        LinkedHashMap<Long, Object> merged = new LinkedHashMap<>(last.values);
+        for (Map.Entry<Long, Object> entry : values.entrySet()) {
+            Object previous = merged.put(entry.getKey(), entry.getValue());
+            if (entry.getValue().equals(previous)) continue;
+            if (diff == null) diff = new RemoteViews(context.getPackageName(), layoutId);
+            apply(diff, entry.getKey(), entry.getValue());
+            changed++;
+        }
+        values.clear();
+        values.putAll(merged);
+        synchronized (pushed) {
+            pushed.put(appWidgetId, this);
+        }
+
+        if (diff != null) {
+            manager.partiallyUpdateAppWidget(appWidgetId, diff);
+        }
+        android.util.Log.d("WidgetViews", "Widget " + appWidgetId + ": " + changed + " changed values");
+        return false;
+    }
+
+    /**
+     * 저장된 모델을 지워서 다음 push 가 전체 업데이트가 되게 한다
+     */
+    static void forget(int[] appWidgetIds) {
+        synchronized (pushed) {
+            for (int id : appWidgetIds) pushed.remove(id);
+        }
+    }
+
+    private void put(int viewId, int property, Object value) {
+        values.put(((long) viewId << 3) | property, value);
+    }
+
+    private void apply(RemoteViews views, long key, Object value) {
+        int viewId = (int) (key >>> 3);
+        switch ((int) (key & 7)) {
+            case TEXT:
+                views.setTextViewText(viewId, (String) value);
+                break;
+            case TEXT_COLOR:
+                views.setTextColor(viewId, (Integer) value);
+                break;
+            case BACKGROUND:
+                views.setInt(viewId, "setBackgroundResource", (Integer) value);
+                break;
+            case VISIBILITY:
+                views.setViewVisibility(viewId, (Integer) value);
+                break;
+            case CLICK: {
+                Click click = (Click) value;
+                PendingIntent pendingIntent = click.activity
+                    ? PendingIntent.getActivity(context, click.requestCode, click.intent, click.flags)
+                    : PendingIntent.getBroadcast(context, click.requestCode, click.intent, click.flags);
+                views.setOnClickPendingIntent(viewId, pendingIntent);
+                break;
+            }
+            case IMAGE:
+                views.setImageViewBitmap(viewId, (Bitmap) value);
+                break;
+        }
+    }
+}
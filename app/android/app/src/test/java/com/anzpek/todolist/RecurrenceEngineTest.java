@@ -0,0 +1,57 @@
+package com.anzpek.todolist;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * RecurrenceEngine 공휴일 처리가 JS (simpleRecurring.ts) 와 같은 날짜를 내는지
+ */
+public class RecurrenceEngineTest {
+
+    // 2026-09-25 (금) 은 추석 연휴 (기본 공휴일)
+    private static final HolidayCalendar HOLIDAYS = HolidayCalendar.parse("");
+
+    @Test
+    public void lastWeekdayOfMonthIsNotShiftedOffHoliday() {
+        // 매달 마지막 금요일, 공휴일이면 뒤로: JS 는 요일 패턴을 옮기지 않으므로 9/25 그대로
+        RecurrenceEngine engine = rule(RecurrenceEngine.MONTHLY_WEEKDAY, RecurrenceEngine.LAST_DAY, 5, 1);
+        assertArrayEquals(new int[] {DateKeys.parse("2026-09-25")},
+            engine.expand(0, DateKeys.parse("2026-09-01"), DateKeys.parse("2026-09-30"), HOLIDAYS));
+    }
+
+    @Test
+    public void monthlyDateIsShiftedOffHoliday() {
+        // 매달 25일, 공휴일이면 뒤로: 9/25 (금, 추석) → 9/28 (월)
+        RecurrenceEngine engine = rule(RecurrenceEngine.MONTHLY_DATE, 25, 0, 1);
+        assertArrayEquals(new int[] {DateKeys.parse("2026-09-28")},
+            engine.expand(0, DateKeys.parse("2026-09-01"), DateKeys.parse("2026-09-30"), HOLIDAYS));
+    }
+
+    @Test
+    public void shiftKeepsOriginalDayWhenNoWorkdayWithinLimit() {
+        // 9/20 ~ 10/31 을 모두 공휴일로: 15일 안에 근무일이 없으면 JS 처럼 원래 날짜
+        StringBuilder custom = new StringBuilder();
+        for (int day = DateKeys.parse("2026-09-20"); day <= DateKeys.parse("2026-10-31"); day++) {
+            if (custom.length() > 0) custom.append(',');
+            custom.append(DateKeys.format(day));
+        }
+        HolidayCalendar allHolidays = HolidayCalendar.parse(custom.toString());
+        int day = DateKeys.parse("2026-10-10");
+        assertEquals(day, RecurrenceEngine.shiftOffHoliday(day, 1, allHolidays));
+        assertEquals(day, RecurrenceEngine.shiftOffHoliday(day, -1, allHolidays));
+    }
+
+    // 규칙 하나짜리 엔진 (공휴일 처리는 ingest 와 같은 규칙으로 정리)
+    private static RecurrenceEngine rule(byte kind, int ordinal, int weekday, int holidayShift) {
+        RecurrenceEngine engine = new RecurrenceEngine(null, 1);
+        engine.kind[0] = kind;
+        engine.ordinal[0] = (byte) ordinal;
+        engine.weekday[0] = (byte) weekday;
+        engine.holidayShift[0] = (byte) RecurrenceEngine.holidayShift(kind, ordinal, holidayShift);
+        engine.startDay[0] = DateKeys.NONE;
+        engine.endDay[0] = DateKeys.NONE;
+        return engine;
+    }
+}
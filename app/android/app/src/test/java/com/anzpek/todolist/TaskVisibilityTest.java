@@ -0,0 +1,111 @@
+package com.anzpek.todolist;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * TaskVisibility 표시 규칙 (리스트/그리드) 표 기반 테스트
+ *
+ * 날짜는 TODAY 기준 상대 일수로 적는다. N 은 날짜 없음.
+ */
+public class TaskVisibilityTest {
+
+    private static final int TODAY = DateKeys.parse("2026-10-16");
+    private static final int N = DateKeys.NONE;
+
+    // {start, due, completed(0/1), completedOn, vacation(0/1), day, expectedList(0/1), expectedGrid(0/1)}
+    private static final int[][] CASES = {
+        // 시작일~종료일 범위
+        {-2, 2, 0, N, 0, -3, 0, 0},
+        {-2, 2, 0, N, 0, -2, 1, 1},
+        {-2, 2, 0, N, 0, 0, 1, 1},
+        {-2, 2, 0, N, 0, 2, 1, 1},
+        {-2, 2, 0, N, 0, 3, 0, 0},
+        // 종료일이 시작일보다 앞: 어디에도 안 보임
+        {2, -2, 0, N, 0, 0, 0, 0},
+        // 시작일만: 시작일 + 오늘까지 이월
+        {-5, N, 0, N, 0, -6, 0, 0},
+        {-5, N, 0, N, 0, -5, 1, 1},
+        {-5, N, 0, N, 0, -1, 1, 1},
+        {-5, N, 0, N, 0, 0, 1, 1},
+        {-5, N, 0, N, 0, 1, 0, 0},
+        // 시작일이 미래: 그 날만
+        {3, N, 0, N, 0, 0, 0, 0},
+        {3, N, 0, N, 0, 3, 1, 1},
+        {3, N, 0, N, 0, 4, 0, 0},
+        // 종료일만: 그 날만
+        {N, 1, 0, N, 0, 0, 0, 0},
+        {N, 1, 0, N, 0, 1, 1, 1},
+        // 날짜 없음 (Inbox): 리스트의 오늘에만
+        {N, N, 0, N, 0, 0, 1, 0},
+        {N, N, 0, N, 0, 1, 0, 0},
+        {N, N, 1, N, 0, 0, 0, 0},
+        // 오늘 완료: 리스트의 오늘에만, 그리드에는 없음
+        {-5, N, 1, 0, 0, 0, 1, 0},
+        {-5, N, 1, 0, 0, -5, 0, 0},
+        {-2, 2, 1, 0, 0, 1, 0, 0},
+        {N, N, 1, 0, 0, 0, 1, 0},
+        // 어제 완료: 어디에도 안 보임
+        {-5, N, 1, -1, 0, 0, 0, 0},
+        {-5, N, 1, -1, 0, -5, 0, 0},
+        // 완료일 없는 완료 할일: 리스트는 날짜 규칙, 이월은 없음
+        {-5, N, 1, N, 0, -5, 1, 0},
+        {-5, N, 1, N, 0, 0, 0, 0},
+        {-2, 2, 1, N, 0, 0, 1, 0},
+        // 휴가 할일은 완료돼도 그리드에 남음
+        {-1, 1, 1, N, 1, 0, 1, 1},
+        {-3, N, 1, N, 1, 0, 0, 1},
+    };
+
+    @Test
+    public void rulesMatchTable() {
+        TaskVisibility visibility = TaskVisibility.build(buildTable());
+
+        for (int i = 0; i < CASES.length; i++) {
+            int[] c = CASES[i];
+            int day = TODAY + c[5];
+            assertEquals("list case " + i, c[6] == 1, visibility.visibleInList(i, day, TODAY));
+            assertEquals("grid case " + i, c[7] == 1, visibility.visibleInGrid(i, day, TODAY));
+        }
+    }
+
+    @Test
+    public void intervalIndexMatchesGridRule() {
+        TaskVisibility visibility = TaskVisibility.build(buildTable());
+        TaskIntervalIndex index = TaskIntervalIndex.build(visibility);
+
+        for (int from = -8; from <= 6; from++) {
+            for (int to = from; to <= from + 6; to++) {
+                StringBuilder expected = new StringBuilder();
+                for (int i = 0; i < CASES.length; i++) {
+                    for (int day = from; day <= to; day++) {
+                        if (visibility.visibleInGrid(i, TODAY + day, TODAY)) {
+                            expected.append(i).append(',');
+                            break;
+                        }
+                    }
+                }
+                StringBuilder actual = new StringBuilder();
+                for (int i : index.query(TODAY + from, TODAY + to, TODAY)) actual.append(i).append(',');
+                assertEquals("window " + from + ".." + to, expected.toString(), actual.toString());
+            }
+        }
+    }
+
+    private static TaskTable buildTable() {
+        TaskTable table = new TaskTable(null, CASES.length);
+        for (int i = 0; i < CASES.length; i++) {
+            int[] c = CASES[i];
+            table.startDay[i] = relative(c[0]);
+            table.dueDay[i] = relative(c[1]);
+            table.completedDay[i] = relative(c[3]);
+            table.flags[i] = (byte) ((c[2] == 1 ? TaskTable.FLAG_COMPLETED : 0) | (c[4] == 1 ? TaskTable.FLAG_VACATION : 0));
+        }
+        return table;
+    }
+
+    private static int relative(int offset) {
+        return offset == N ? N : TODAY + offset;
+    }
+}
@@ -5,7 +5,7 @@ import { AuthProvider, useAuth } from './contexts/AuthContext'
 import { VacationProvider } from './contexts/VacationContext'
 import { KeyboardProvider } from './contexts/KeyboardContext'
 import { FontSizeProvider } from './contexts/FontSizeContext'
-import { CustomHolidayProvider } from './contexts/CustomHolidayContext'
+import { CustomHolidayProvider, useCustomHolidays } from './contexts/CustomHolidayContext'
 import { useGlobalKeyboard } from './hooks/useGlobalKeyboard'
 import { debug } from './utils/debug'
 import { performanceMonitor, measureRenderTime } from './utils/performance'
@@ -147,8 +147,9 @@ function AppContent() {
   const searchInputRef = useRef<HTMLInputElement>(null)
   const addTodoModalRef = useRef<{ open: () => void }>(null)
   const { i18n } = useTranslation()
-  const { todos, getRecurringTodos, toggleTodo, loadHistoricalTodos } = useTodos()
+  const { todos, recurringTemplates, getRecurringTodos, toggleTodo, loadHistoricalTodos } = useTodos()
   const { vacations, employees, loadMonthVacations } = useVacation()
+  const { customHolidays } = useCustomHolidays()
 
   // View Change Optimization: Load Historical Data on Demand
   useEffect(() => {
@@ -189,10 +190,10 @@ function AppContent() {
         }
       })
 
-      syncWidget({ todos: allTodos, vacations: vacationsWithNames })
+      syncWidget({ todos: allTodos, vacations: vacationsWithNames, recurringTemplates, customHolidays })
     }, 1000)
     return () => clearTimeout(timer)
-  }, [todos, getRecurringTodos, vacations, employees])
+  }, [todos, recurringTemplates, getRecurringTodos, vacations, employees, customHolidays])
 
   // Load Language & Start Screen Settings
   useEffect(() => {
@@ -296,6 +297,15 @@ function AppContent() {
             setTimeout(() => {
               window.dispatchEvent(new CustomEvent('openAddTodoModal'))
             }, 300)
+          } else if (url.startsWith('todolist://date/')) {
+            // 전체 달력 위젯 날짜 칸 - 그 날짜의 오늘 화면
+            const date = url.substring('todolist://date/'.length)
+            if (/^\d{4}-\d{2}-\d{2}$/.test(date)) {
+              console.log('Opening date from widget:', date)
+              setTimeout(() => {
+                window.dispatchEvent(new CustomEvent('openWidgetDate', { detail: { date } }))
+              }, 300)
+            }
           } else if (url.includes('todolist://toggle')) {
             // 할일 완료 토글
             const urlObj = new URL(url)
@@ -332,6 +342,18 @@ function AppContent() {
     handleDeepLink()
   }, [toggleTodo])
 
+  // 위젯 날짜 칸 (todolist://date/...) - 오늘 화면으로 전환, 날짜는 MainContent 가 맞춘다
+  useEffect(() => {
+    const handleOpenWidgetDate = () => {
+      setCurrentView('today')
+    }
+
+    window.addEventListener('openWidgetDate', handleOpenWidgetDate)
+    return () => {
+      window.removeEventListener('openWidgetDate', handleOpenWidgetDate)
+    }
+  }, [])
+
   // 위젯에서 toggleTodo 이벤트 수신
   useEffect(() => {
     const setupWidgetListener = async () => {
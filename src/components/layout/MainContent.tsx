@@ -145,6 +145,22 @@ const MainContent = ({ currentView, isSidebarOpen, onToggleSidebar, searchInputR
     }
   }, [])
 
+  // 딥링크 이벤트 수신: 위젯에서 누른 날짜로 이동 (detail.date = 'yyyy-MM-dd')
+  useEffect(() => {
+    const handleOpenWidgetDate = (event: Event) => {
+      const date = (event as CustomEvent<{ date: string }>).detail?.date
+      if (!date) return
+      const [year, month, day] = date.split('-').map(Number)
+      console.log('Received openWidgetDate event:', date)
+      setSelectedDate(new Date(year, month - 1, day))
+    }
+
+    window.addEventListener('openWidgetDate', handleOpenWidgetDate)
+    return () => {
+      window.removeEventListener('openWidgetDate', handleOpenWidgetDate)
+    }
+  }, [])
+
   // 초대 수락 감지 및 자동 처리 (Sender Side Sync)
   useEffect(() => {
     if (!currentUser?.uid) return
@@ -1,7 +1,88 @@
 import { registerPlugin } from '@capacitor/core';
 
+export interface WidgetTaskItem {
+    id: string;
+    title: string;
+    completed: boolean;
+    priority: string;
+    dueDate: string;
+    startDate: string;
+    completedAt: string;
+    isVacation?: boolean; // 휴가 할일 (위젯에서 휴가 색으로 표시)
+}
+
+export interface WidgetVacationItem {
+    id: string;
+    date: string;
+    type: string;
+    employeeName: string;
+}
+
+// 반복 템플릿 규칙 (네이티브가 위젯에 보이는 날짜만 전개)
+export interface WidgetRecurringRule {
+    id: string;
+    title: string;
+    priority: string;
+    recurrenceType: 'daily' | 'weekly' | 'monthly';
+    weekday?: number; // 0=일 ~ 6=토
+    monthlyDate?: number; // 1-31, -1=말일, -2=첫번째 근무일, -3=마지막 근무일
+    monthlyPattern?: 'date' | 'weekday';
+    monthlyWeek?: 'first' | 'second' | 'third' | 'fourth' | 'last';
+    monthlyWeekday?: number;
+    holidayHandling?: 'before' | 'after' | 'show'; // 주말/공휴일이면 앞/뒤 근무일로 이동
+    startDate: string; // yyyy-MM-dd
+    endDate?: string;
+}
+
+// 사용자 지정 공휴일 (isRecurring 이면 매년 같은 월/일)
+export interface WidgetCustomHoliday {
+    date: string; // yyyy-MM-dd
+    isRecurring?: boolean;
+}
+
+export interface WidgetVersionResult {
+    version: number;
+}
+
+// 네이티브가 직전 동기화와 해시를 비교한 결과 (모두 false 면 기록/재렌더링 생략됨)
+export interface WidgetUpdateResult extends WidgetVersionResult {
+    changed: {
+        calendar: boolean;
+        vacations: boolean;
+        recurring: boolean;
+    };
+}
+
+export interface WidgetIngestStats {
+    submitted: number;
+    applied: number;
+    coalesced: number;
+    debounceMs: number;
+}
+
 export interface TodoListWidgetPlugin {
-    updateWidget(options: { data: string; date?: string; transparency?: number }): Promise<void>;
+    // 배열을 그대로 넘긴다 (data 는 예전 JSON 문자열 형식, 하위 호환용)
+    updateWidget(options: {
+        calendar?: WidgetTaskItem[];
+        vacations?: WidgetVacationItem[];
+        recurring?: WidgetRecurringRule[];
+        data?: string;
+        date?: string;
+        transparency?: number;
+    }): Promise<WidgetUpdateResult>;
+    // 부분 변경: baseVersion 이 네이티브 버전과 다르면 VERSION_MISMATCH 로 reject → updateWidget 으로 전체 재전송
+    upsertTasks(options: { baseVersion: number; tasks: WidgetTaskItem[] }): Promise<WidgetVersionResult>;
+    deleteTasks(options: { baseVersion: number; ids: string[] }): Promise<WidgetVersionResult>;
+    upsertVacations(options: { baseVersion: number; vacations: WidgetVacationItem[] }): Promise<WidgetVersionResult>;
+    deleteVacations(options: { baseVersion: number; ids: string[] }): Promise<WidgetVersionResult>;
+    getVersion(): Promise<WidgetVersionResult>;
+    // 달력 공휴일 색상과 반복 규칙 공휴일 처리에 쓰는 사용자 지정 공휴일 (기본 공휴일은 네이티브에 내장)
+    setCustomHolidays(options: { holidays: WidgetCustomHoliday[] }): Promise<{ changed: boolean }>;
+    // 전체 달력 위젯 렌더링 모드: grid (기본) / bitmap (바쁜 달도 한 장의 이미지로, 칸 높이만큼 할일 표시)
+    setFullCalendarRenderMode(options: { mode: 'grid' | 'bitmap' }): Promise<{ mode: 'grid' | 'bitmap'; changed: boolean }>;
+    // 네이티브 반영 큐: 디바운스 창 안의 연속 호출은 한 번의 기록/재렌더링으로 합쳐진다
+    configureIngest(options: { debounceMs: number }): Promise<{ debounceMs: number }>;
+    getIngestStats(): Promise<WidgetIngestStats>;
 }
 
 const TodoListWidget = registerPlugin<TodoListWidgetPlugin>('TodoListWidget');
@@ -1,4 +1,6 @@
 import type { Todo } from '../types/todo'
+import type { TodoListWidgetPlugin, WidgetTaskItem, WidgetVacationItem, WidgetRecurringRule, WidgetCustomHoliday } from '../plugins/TodoListWidget'
+import type { SimpleRecurringTemplate } from './simpleRecurring'
 
 interface Vacation {
     id: string
@@ -11,6 +13,137 @@ interface Vacation {
 interface SyncWidgetOptions {
     todos: Todo[]
     vacations?: Vacation[]
+    recurringTemplates?: SimpleRecurringTemplate[]
+    customHolidays?: WidgetCustomHoliday[]
+}
+
+type RecurringTodo = Todo & { _templateId?: string }
+
+const toDateKey = (date: Date) =>
+    `${date.getFullYear()}-${String(date.getMonth() + 1).padStart(2, '0')}-${String(date.getDate()).padStart(2, '0')}`
+
+/**
+ * 네이티브가 같은 결과로 전개할 수 있는 템플릿만 규칙으로 보낸다.
+ * 공휴일 조정과 근무일(-2/-3) 규칙은 네이티브 공휴일 달력(기본 + 사용자 지정)으로 계산한다.
+ * 예외 날짜가 있는 템플릿은 지금처럼 인스턴스로 보낸다.
+ */
+const toWidgetRecurringRules = (templates: SimpleRecurringTemplate[], todos: Todo[]): WidgetRecurringRule[] => {
+    const rules: WidgetRecurringRule[] = []
+    templates.forEach(t => {
+        if (!t.isActive) return
+        if (t.exceptions && t.exceptions.length > 0) return
+        // 인스턴스 변환 시 바뀐 우선순위(업무보고 등)를 그대로 따른다
+        const instance = todos.find(todo => (todo as RecurringTodo)._templateId === t.id)
+        rules.push({
+            id: t.id,
+            title: t.title,
+            priority: instance?.priority || t.priority,
+            recurrenceType: t.recurrenceType,
+            weekday: t.weekday,
+            monthlyDate: t.monthlyDate,
+            monthlyPattern: t.monthlyPattern,
+            monthlyWeek: t.monthlyWeek,
+            monthlyWeekday: t.monthlyWeekday,
+            holidayHandling: t.holidayHandling,
+            startDate: toDateKey(new Date(t.createdAt))
+        })
+    })
+    return rules
+}
+
+// 마지막으로 네이티브에 보낸 상태 (id → 직렬화 문자열), 다음 동기화 때 변경분만 보내기 위함
+interface SentState {
+    version: number
+    meta: string
+    tasks: Map<string, string>
+    vacations: Map<string, string>
+}
+
+let lastSent: SentState | null = null
+// 마지막으로 보낸 사용자 지정 공휴일 (바뀔 때만 다시 보낸다)
+let lastHolidays: string | null = null
+
+// 공휴일은 위젯 데이터보다 먼저 보내서 재렌더링이 새 공휴일로 되게 한다
+const sendCustomHolidays = async (plugin: TodoListWidgetPlugin, holidays: WidgetCustomHoliday[]) => {
+    const serialized = JSON.stringify(holidays)
+    if (serialized === lastHolidays) return
+    await plugin.setCustomHolidays({ holidays })
+    lastHolidays = serialized
+}
+
+// 네이티브 WidgetStore 와 같은 키 규칙 (id 가 없으면 날짜+이름+유형)
+const vacationKey = (v: WidgetVacationItem) => v.id || `${v.date}|${v.employeeName}|${v.type}`
+
+const toSentMap = <T>(items: T[], keyOf: (item: T) => string) => {
+    const map = new Map<string, string>()
+    items.forEach(item => map.set(keyOf(item), JSON.stringify(item)))
+    return map
+}
+
+const diffItems = <T>(items: T[], keyOf: (item: T) => string, previous: Map<string, string>) => {
+    const upserts: T[] = []
+    const seen = new Set<string>()
+    items.forEach(item => {
+        const key = keyOf(item)
+        seen.add(key)
+        if (previous.get(key) !== JSON.stringify(item)) upserts.push(item)
+    })
+    const deletes = [...previous.keys()].filter(key => !seen.has(key))
+    return { upserts, deletes }
+}
+
+/**
+ * 변경분만 네이티브에 전송
+ * @returns 처리했으면 true, 전체 전송이 필요하면 false
+ */
+const sendDelta = async (
+    plugin: TodoListWidgetPlugin,
+    tasks: WidgetTaskItem[],
+    vacations: WidgetVacationItem[],
+    meta: string
+): Promise<boolean> => {
+    if (!lastSent || lastSent.meta !== meta) return false
+
+    const taskDiff = diffItems(tasks, t => t.id, lastSent.tasks)
+    const vacationDiff = diffItems(vacations, vacationKey, lastSent.vacations)
+    const changeCount = taskDiff.upserts.length + taskDiff.deletes.length
+        + vacationDiff.upserts.length + vacationDiff.deletes.length
+
+    if (changeCount === 0) {
+        console.log('📱 syncWidget: No changes, skipping')
+        return true
+    }
+    // 절반 이상 바뀌었으면 한 번에 전체 전송이 더 싸다
+    if (changeCount * 2 > tasks.length + vacations.length) return false
+
+    try {
+        let version = lastSent.version
+        if (taskDiff.upserts.length > 0) {
+            version = (await plugin.upsertTasks({ baseVersion: version, tasks: taskDiff.upserts })).version
+        }
+        if (taskDiff.deletes.length > 0) {
+            version = (await plugin.deleteTasks({ baseVersion: version, ids: taskDiff.deletes })).version
+        }
+        if (vacationDiff.upserts.length > 0) {
+            version = (await plugin.upsertVacations({ baseVersion: version, vacations: vacationDiff.upserts })).version
+        }
+        if (vacationDiff.deletes.length > 0) {
+            version = (await plugin.deleteVacations({ baseVersion: version, ids: vacationDiff.deletes })).version
+        }
+        lastSent = {
+            version,
+            meta,
+            tasks: toSentMap(tasks, t => t.id),
+            vacations: toSentMap(vacations, vacationKey)
+        }
+        console.log('📱 syncWidget: Delta sent,', changeCount, 'changes, version', version)
+        return true
+    } catch (e) {
+        // 버전 불일치(위젯에서 토글 등) 또는 실패 → 전체 전송으로 복구
+        console.warn('📱 syncWidget: Delta failed, falling back to full update', e)
+        lastSent = null
+        return false
+    }
 }
 
 export const syncWidget = async (todosOrOptions: Todo[] | SyncWidgetOptions) => {
@@ -33,123 +166,38 @@ export const syncWidget = async (todosOrOptions: Todo[] | SyncWidgetOptions) =>
         // 입력 형식 처리 (배열 또는 객체)
         let todos: Todo[]
         let vacations: Vacation[] = []
+        let recurringTemplates: SimpleRecurringTemplate[] = []
 
         if (Array.isArray(todosOrOptions)) {
             todos = todosOrOptions
         } else {
             todos = todosOrOptions.todos
             vacations = todosOrOptions.vacations || []
+            recurringTemplates = todosOrOptions.recurringTemplates || []
+            if (todosOrOptions.customHolidays) {
+                await sendCustomHolidays(TodoListWidget, todosOrOptions.customHolidays.map(h => ({
+                    date: h.date,
+                    isRecurring: !!h.isRecurring
+                })))
+            }
         }
 
-        const now = new Date()
-        now.setHours(0, 0, 0, 0)
+        // 규칙으로 보내는 템플릿의 미래 미완료 인스턴스는 네이티브가 전개하므로 보내지 않는다
+        // (오늘까지의 인스턴스와 완료된 인스턴스는 완료 상태/이월 때문에 그대로 보냄)
+        const recurringRules = toWidgetRecurringRules(recurringTemplates, todos)
+        if (recurringRules.length > 0) {
+            const ruleIds = new Set(recurringRules.map(r => r.id))
+            const todayKey = toDateKey(new Date())
+            todos = todos.filter(todo => {
+                const templateId = (todo as RecurringTodo)._templateId
+                if (!templateId || !ruleIds.has(templateId) || todo.completed || !todo.startDate) return true
+                return toDateKey(new Date(todo.startDate)) <= todayKey
+            })
+        }
 
         console.log('📱 syncWidget: Starting with', todos.length, 'todos,', vacations.length, 'vacations')
 
-        // ========================================
-        // 오늘 할일 위젯용 - 오늘 할일 (완료된 것 포함)
-        // ========================================
-        const widgetTodos = todos.filter((todo) => {
-            // 완료된 할일도 포함 (오늘 완료한 것)
-            if (todo.completed && todo.completedAt) {
-                const completedDate = new Date(todo.completedAt)
-                completedDate.setHours(0, 0, 0, 0)
-                return completedDate.getTime() === now.getTime()
-            }
-
-            // 미완료 할일
-            if (!todo.completed) {
-                if (todo.startDate) {
-                    const start = new Date(todo.startDate)
-                    start.setHours(0, 0, 0, 0)
-                    return now >= start
-                }
-                if (todo.dueDate) {
-                    const due = new Date(todo.dueDate)
-                    due.setHours(0, 0, 0, 0)
-                    return now >= due
-                }
-                return true // Inbox
-            }
-
-            return false
-        })
-
-        console.log('📱 syncWidget: Filtered to', widgetTodos.length, 'today todos')
-
-        const sorted = [...widgetTodos].sort((a, b) => {
-            // Priority map
-            const pMap: Record<string, number> = { urgent: 0, high: 1, medium: 2, low: 3 }
-            const pA = pMap[a.priority] ?? 2
-            const pB = pMap[b.priority] ?? 2
-            if (pA !== pB) return pA - pB
-
-            // Due Date
-            if (a.dueDate && b.dueDate) return new Date(a.dueDate).getTime() - new Date(b.dueDate).getTime()
-            if (a.dueDate) return -1
-            if (b.dueDate) return 1
-
-            return (a.order ?? 0) - (b.order ?? 0)
-        })
-
-        // 오늘 할일 위젯용 데이터 (30개 제한)
-        const todayWidgetData = sorted.slice(0, 30).map((t) => {
-            // 날짜를 ISO 문자열로 안전하게 변환
-            let dueDateStr = ''
-            let startDateStr = ''
-            let completedAtStr = ''
-
-            if (t.dueDate) {
-                try {
-                    dueDateStr = t.dueDate instanceof Date
-                        ? t.dueDate.toISOString()
-                        : new Date(t.dueDate).toISOString()
-                } catch (e) {
-                    dueDateStr = String(t.dueDate)
-                }
-            }
-
-            if (t.startDate) {
-                try {
-                    startDateStr = t.startDate instanceof Date
-                        ? t.startDate.toISOString()
-                        : new Date(t.startDate).toISOString()
-                } catch (e) {
-                    startDateStr = String(t.startDate)
-                }
-            }
-
-            if (t.completedAt) {
-                try {
-                    completedAtStr = t.completedAt instanceof Date
-                        ? t.completedAt.toISOString()
-                        : new Date(t.completedAt).toISOString()
-                } catch (e) {
-                    completedAtStr = String(t.completedAt)
-                }
-            }
-
-            // subTasks null 체크
-            const subTasks = t.subTasks || []
-            const completedSubTasks = subTasks.filter(s => s.completed).length
-            const progress = subTasks.length > 0
-                ? Math.round((completedSubTasks / subTasks.length) * 100)
-                : -1
-
-            return {
-                id: t.id || '',
-                title: t.title || '',
-                completed: t.completed || false,
-                priority: t.priority || 'medium',
-                description: t.description || '',
-                dueDate: dueDateStr,
-                startDate: startDateStr,
-                completedAt: completedAtStr,
-                progress
-            }
-        })
-
-        console.log('📱 syncWidget: Today widget data:', todayWidgetData.length, 'items')
+        // today 섹션과 description 은 네이티브에서 읽지 않으므로 보내지 않는다 (위젯은 calendar 로 오늘 목록을 만든다)
 
         // ========================================
         // 캘린더 위젯용 - 날짜가 있는 모든 할일 + 반복 할일 (완료된 것 포함)
@@ -183,7 +231,7 @@ export const syncWidget = async (todosOrOptions: Todo[] | SyncWidgetOptions) =>
             return pA - pB
         })
 
-        const calendarTodos = calendarSorted.map((t) => {
+        const calendarTodos: WidgetTaskItem[] = calendarSorted.map((t) => {
             let dueDateStr = ''
             let startDateStr = ''
             let completedAtStr = ''
@@ -234,7 +282,7 @@ export const syncWidget = async (todosOrOptions: Todo[] | SyncWidgetOptions) =>
         // ========================================
         // 휴가 데이터 처리
         // ========================================
-        const vacationData = vacations.map(v => ({
+        const vacationData: WidgetVacationItem[] = vacations.map(v => ({
             id: v.id,
             date: v.date,
             type: v.type,
@@ -244,22 +292,33 @@ export const syncWidget = async (todosOrOptions: Todo[] | SyncWidgetOptions) =>
         console.log('📱 syncWidget: Vacation data:', vacationData.length, 'items')
 
         const transparency = parseInt(localStorage.getItem('widgetTransparency') || '80')
+        const date = new Date().toLocaleDateString()
+        // 규칙이 바뀌면 부분 전송 대신 전체 전송 (규칙은 updateWidget 으로만 바뀐다)
+        const meta = `${date}|${transparency}|${JSON.stringify(recurringRules)}`
 
-        const combinedData = {
-            today: todayWidgetData,
-            calendar: calendarTodos,
-            vacations: vacationData
+        if (await sendDelta(TodoListWidget, calendarTodos, vacationData, meta)) {
+            console.log('📱 syncWidget: SUCCESS!')
+            return
         }
 
         console.log('📱 syncWidget: Sending combined data to native...')
 
-        await TodoListWidget.updateWidget({
-            data: JSON.stringify(combinedData),
-            date: new Date().toLocaleDateString(),
+        // 문자열로 직렬화하지 않고 객체 배열 그대로 전달
+        const result = await TodoListWidget.updateWidget({
+            calendar: calendarTodos,
+            vacations: vacationData,
+            recurring: recurringRules,
+            date,
             transparency
         })
+        lastSent = {
+            version: result?.version ?? 0,
+            meta,
+            tasks: toSentMap(calendarTodos, t => t.id),
+            vacations: toSentMap(vacationData, vacationKey)
+        }
 
-        console.log('📱 syncWidget: SUCCESS!')
+        console.log('📱 syncWidget: SUCCESS!', result?.changed)
 
     } catch (error) {
         console.error('Widget sync failed', error)